@@ -0,0 +1,22 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package benchmark;
+
+/**
+ * An operation measured by the Harness.
+ */
+public interface Benchmark {
+
+    /**
+     * Performs the operation a number of times.
+     * 
+     * @param theOps the number of times.
+     * @return any value computed from the work, which the harness keeps so
+     *         that the work cannot be optimized away.
+     */
+    long run(int theOps);
+}
@@ -0,0 +1,88 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package benchmark;
+
+import java.util.SplittableRandom;
+
+import model.Board;
+import model.Rotation;
+import model.SevenBagGenerator;
+
+/**
+ * Boards in a known position for the benchmarks.
+ */
+public final class Boards {
+
+    /**
+     * The mid-game board is stacked to its height divided by this.
+     */
+    private static final int FILL = 3;
+
+    /**
+     * Separates the width from the height in a board size.
+     */
+    private static final char SEPARATOR = 'x';
+
+    /**
+     * Constructor.
+     */
+    private Boards() {
+    }
+
+    /**
+     * Reads the width from a board size written as WIDTHxHEIGHT.
+     * 
+     * @param theSize the board size, such as 10x20.
+     * @return the width.
+     */
+    public static int width(final String theSize) {
+        return Integer.parseInt(theSize.substring(0, theSize.indexOf(SEPARATOR)));
+    }
+
+    /**
+     * Reads the height from a board size written as WIDTHxHEIGHT.
+     * 
+     * @param theSize the board size, such as 10x20.
+     * @return the height.
+     */
+    public static int height(final String theSize) {
+        return Integer.parseInt(theSize.substring(theSize.indexOf(SEPARATOR) + 1));
+    }
+
+    /**
+     * Creates a mid-game board: stacked with seeded random placements to a
+     * third of its height, so that it has holes and a ragged surface, with a
+     * new piece about to fall. The same seed always gives the same board.
+     * 
+     * @param theWidth width of the board.
+     * @param theHeight height of the board.
+     * @param theSeed seed of the pieces and placements.
+     * @return the board.
+     */
+    public static Board midGame(final int theWidth, final int theHeight, final long theSeed) {
+        final Board board = new Board(theWidth, theHeight);
+        board.setPieceGenerator(new SevenBagGenerator(theSeed));
+        board.clear();
+        final SplittableRandom random = new SplittableRandom(theSeed);
+        while (board.getFeatures().maxHeight() < theHeight / FILL) {
+            for (int i = random.nextInt(Rotation.values().length); i > 0; i--) {
+                board.rotateCW();
+            }
+            final int shift = random.nextInt(theWidth) - theWidth / 2;
+            for (int i = 0; i < Math.abs(shift); i++) {
+                if (shift < 0) {
+                    board.left();
+                }
+                else {
+                    board.right();
+                }
+            }
+            board.drop();
+        }
+        return board;
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A small benchmark harness in plain Java, for a project without a build
+ * tool to pull in JMH.
+ * 
+ * Each benchmark is warmed up, then timed over several iterations of a fixed
+ * duration. An iteration calls the benchmark in batches, sized during warmup
+ * so that a batch takes about a millisecond and timer overhead does not show.
+ * The result is the mean time per operation with a 95% confidence margin over
+ * the iterations, and the bytes allocated per operation by the benchmark
+ * thread, counted by the JVM as JMH's -prof gc does. Benchmarks return a value
+ * derived from their work, which the harness keeps so the JIT cannot remove
+ * the work.
+ * 
+ * Results are printed as a table and can be written to a baseline file; a
+ * later run compared with that file marks benchmarks that got slower or
+ * allocate more.
+ * 
+ * Command line options: --warmup N and --iterations N (default 5 and 10),
+ * --time MS per iteration (default 200), --filter TEXT to run only benchmarks
+ * whose name contains TEXT, --out FILE to write the results and --baseline
+ * FILE to compare with earlier results. A suite may read options of its own
+ * with option.
+ */
+public final class Harness {
+
+    /**
+     * Warmup iterations by default.
+     */
+    private static final int DEFAULT_WARMUP = 5;
+
+    /**
+     * Measured iterations by default.
+     */
+    private static final int DEFAULT_ITERATIONS = 10;
+
+    /**
+     * Milliseconds per iteration by default.
+     */
+    private static final int DEFAULT_TIME = 200;
+
+    /**
+     * Target duration of one batch in nanoseconds.
+     */
+    private static final long BATCH_NANOS = 1_000_000L;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * Normal quantile for a 95% confidence margin.
+     */
+    private static final double Z_95 = 1.96;
+
+    /**
+     * Relative slowdown, beyond the confidence margins, reported as a
+     * regression.
+     */
+    private static final double TOLERANCE = 0.10;
+
+    /**
+     * Hundred, for percentages.
+     */
+    private static final double PERCENT = 100;
+
+    /**
+     * Largest batch of operations per call.
+     */
+    private static final int MAX_BATCH = 1 << 30;
+
+    /**
+     * Values below this are printed with more decimals.
+     */
+    private static final double SMALL = 10;
+
+    /**
+     * Number of counts kept per benchmark.
+     */
+    private static final int COUNTS = 3;
+
+    /**
+     * Index of the operation count.
+     */
+    private static final int OPS = 0;
+
+    /**
+     * Index of the nanosecond count.
+     */
+    private static final int NANOS = 1;
+
+    /**
+     * Index of the allocated byte count.
+     */
+    private static final int BYTES = 2;
+
+    /**
+     * Separates the columns of a results file.
+     */
+    private static final String TAB = "\t";
+
+    /**
+     * Format of a line of the printed table.
+     */
+    private static final String ROW = "%-44s %12s %10s %10s  %s%n";
+
+    /**
+     * The command line options by name.
+     */
+    private final Map<String, String> myOptions;
+
+    /**
+     * Name of the suite, written to the results file.
+     */
+    private final String mySuite;
+
+    /**
+     * Warmup iterations.
+     */
+    private final int myWarmup;
+
+    /**
+     * Measured iterations.
+     */
+    private final int myIterations;
+
+    /**
+     * Nanoseconds per iteration.
+     */
+    private final long myTime;
+
+    /**
+     * Results of an earlier run by benchmark name, or empty.
+     */
+    private final Map<String, double[]> myBaseline;
+
+    /**
+     * Lines of the results file.
+     */
+    private final List<String> myResults;
+
+    /**
+     * Allocation counter of the JVM, or null if it has none.
+     */
+    private final com.sun.management.ThreadMXBean myThreads;
+
+    /**
+     * Keeps the values returned by the benchmarks.
+     */
+    private long mySink;
+
+    /**
+     * Creates a harness from command line options.
+     * 
+     * @param theSuite name of the suite.
+     * @param theArgs the command line options.
+     * @throws IOException if the baseline file cannot be read.
+     * @throws IllegalArgumentException if an option is not recognized.
+     */
+    public Harness(final String theSuite, final String... theArgs) throws IOException {
+        myOptions = parse(theArgs);
+        mySuite = theSuite;
+        myWarmup = Integer.parseInt(option("warmup", String.valueOf(DEFAULT_WARMUP)));
+        myIterations = Integer.parseInt(option("iterations",
+                                               String.valueOf(DEFAULT_ITERATIONS)));
+        myTime = Integer.parseInt(option("time", String.valueOf(DEFAULT_TIME)))
+                 * NANOS_PER_MILLI;
+        myBaseline = readBaseline(path(option("baseline", null)));
+        myResults = new ArrayList<String>();
+        myThreads = allocationCounter();
+        System.out.printf(ROW, "benchmark", "ns/op", "+-", "B/op", "");
+    }
+
+    /**
+     * Returns a command line option, so that a suite can take options of its
+     * own, such as the board sizes to measure.
+     * 
+     * @param theName name of the option, without the leading dashes.
+     * @param theDefault value if the option is absent.
+     * @return the value.
+     */
+    public String option(final String theName, final String theDefault) {
+        String result = theDefault;
+        if (myOptions.containsKey(theName)) {
+            result = myOptions.get(theName);
+        }
+        return result;
+    }
+
+    /**
+     * Runs one benchmark and records its result.
+     * 
+     * @param theName name of the benchmark, including its parameters.
+     * @param theBenchmark the benchmark.
+     */
+    public void run(final String theName, final Benchmark theBenchmark) {
+        if (theName.contains(option("filter", ""))) {
+            final long[] counts = new long[COUNTS];
+            int batch = 1;
+            for (int i = 0; i < myWarmup; i++) {
+                batch = iterate(theBenchmark, batch, counts, true);
+            }
+            Arrays.fill(counts, 0);
+            final double[] times = new double[myIterations];
+            for (int i = 0; i < myIterations; i++) {
+                final long ops = counts[OPS];
+                final long nanos = counts[NANOS];
+                iterate(theBenchmark, batch, counts, false);
+                times[i] = (counts[NANOS] - nanos) / (double) (counts[OPS] - ops);
+            }
+            double bytes = -1;
+            if (myThreads != null) {
+                bytes = counts[BYTES] / (double) counts[OPS];
+            }
+            record(theName, times, bytes);
+        }
+    }
+
+    /**
+     * Writes the results file if one was asked for.
+     * 
+     * @throws IOException if the file cannot be written.
+     */
+    public void finish() throws IOException {
+        final Path out = path(option("out", null));
+        if (out != null) {
+            final List<String> lines = new ArrayList<String>();
+            lines.add("# " + mySuite + " on " + System.getProperty("java.vm.name") + ' '
+                      + System.getProperty("java.version") + ", "
+                      + Runtime.getRuntime().availableProcessors() + " cores");
+            lines.add("# benchmark" + TAB + "ns/op" + TAB + "error" + TAB + "B/op");
+            lines.addAll(myResults);
+            Files.write(out, lines, StandardCharsets.UTF_8);
+        }
+        // print the sink only in the impossible case, so it stays live
+        if (mySink == Long.MIN_VALUE) {
+            System.out.println(mySink);
+        }
+    }
+
+    /**
+     * Runs one iteration, calling the benchmark in batches until the
+     * iteration time has passed.
+     * 
+     * @param theBenchmark the benchmark.
+     * @param theBatch operations per call.
+     * @param theCounts adds the operations, nanoseconds and bytes allocated.
+     * @param theWarmup true to grow the batch until a call takes a millisecond.
+     * @return the batch size to use from now on.
+     */
+    private int iterate(final Benchmark theBenchmark, final int theBatch,
+                        final long[] theCounts, final boolean theWarmup) {
+        int batch = theBatch;
+        long ops = 0;
+        final long bytes = allocatedBytes();
+        final long start = System.nanoTime();
+        long now = start;
+        while (now - start < myTime) {
+            final long before = now;
+            mySink += theBenchmark.run(batch);
+            now = System.nanoTime();
+            ops += batch;
+            if (theWarmup && now - before < BATCH_NANOS && batch < MAX_BATCH) {
+                batch *= 2;
+            }
+        }
+        theCounts[OPS] += ops;
+        theCounts[NANOS] += now - start;
+        theCounts[BYTES] += allocatedBytes() - bytes;
+        return batch;
+    }
+
+    /**
+     * Prints a result, compares it with the baseline and keeps it for the
+     * results file.
+     * 
+     * @param theName name of the benchmark.
+     * @param theTimes nanoseconds per operation in each iteration.
+     * @param theBytes bytes allocated per operation, or -1 if unknown.
+     */
+    private void record(final String theName, final double[] theTimes, final double theBytes) {
+        double mean = 0;
+        for (final double time : theTimes) {
+            mean += time / theTimes.length;
+        }
+        double squares = 0;
+        for (final double time : theTimes) {
+            squares += (time - mean) * (time - mean);
+        }
+        final double error = Z_95 * Math.sqrt(squares / Math.max(1, theTimes.length - 1)
+                                              / theTimes.length);
+        String verdict = "";
+        final double[] base = myBaseline.get(theName);
+        if (base != null) {
+            verdict = String.format(Locale.ROOT, "%+.1f%% vs baseline",
+                                    PERCENT * (mean / base[0] - 1));
+            if (mean - error > (base[0] + base[1]) * (1 + TOLERANCE)) {
+                verdict += " SLOWER";
+            }
+            if (theBytes > base[2] + 1) {
+                verdict += " ALLOCATES MORE";
+            }
+        }
+        System.out.printf(Locale.ROOT, ROW, theName, format(mean), format(error),
+                          format(theBytes), verdict);
+        myResults.add(String.format(Locale.ROOT, "%s\t%.3f\t%.3f\t%.1f", theName, mean, error,
+                                    theBytes));
+    }
+
+    /**
+     * Formats a number for the printed table.
+     * 
+     * @param theValue the number.
+     * @return the number with three significant digits or more.
+     */
+    private static String format(final double theValue) {
+        final String result;
+        if (theValue < 0) {
+            result = "n/a";
+        }
+        else if (theValue < SMALL) {
+            result = String.format(Locale.ROOT, "%.3f", theValue);
+        }
+        else {
+            result = String.format(Locale.ROOT, "%.1f", theValue);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bytes the current thread has allocated so far.
+     * 
+     * @return the byte count, or zero if the JVM does not count them.
+     */
+    private long allocatedBytes() {
+        long result = 0;
+        if (myThreads != null) {
+            result = myThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the allocation counter of the JVM, turned on.
+     * 
+     * @return the counter, or null if the JVM has none.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        com.sun.management.ThreadMXBean result = null;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            result = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (result.isThreadAllocatedMemorySupported()) {
+                result.setThreadAllocatedMemoryEnabled(true);
+            }
+            else {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the results of an earlier run.
+     * 
+     * @param theFile the results file, or null.
+     * @return the mean, error and bytes of each benchmark by name.
+     * @throws IOException if the file cannot be read.
+     */
+    private static Map<String, double[]> readBaseline(final Path theFile) throws IOException {
+        final Map<String, double[]> result = new HashMap<String, double[]>();
+        if (theFile != null) {
+            for (final String line : Files.readAllLines(theFile, StandardCharsets.UTF_8)) {
+                final String[] parts = line.split(TAB);
+                if (!line.startsWith("#") && parts.length == COUNTS + 1) {
+                    result.put(parts[0], new double[] {Double.parseDouble(parts[1]),
+                        Double.parseDouble(parts[2]), Double.parseDouble(parts[COUNTS])});
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads command line options given as pairs of --name and value.
+     * 
+     * @param theArgs the command line options.
+     * @return the values by name.
+     * @throws IllegalArgumentException if an option does not start with --.
+     */
+    private static Map<String, String> parse(final String... theArgs) {
+        final Map<String, String> result = new HashMap<String, String>();
+        for (int i = 0; i + 1 < theArgs.length; i += 2) {
+            if (!theArgs[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + theArgs[i]);
+            }
+            result.put(theArgs[i].substring(2), theArgs[i + 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Turns an optional file name into a path.
+     * 
+     * @param theName the file name, or null.
+     * @return the path, or null.
+     */
+    private static Path path(final String theName) {
+        Path result = null;
+        if (theName != null) {
+            result = Paths.get(theName);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.Arrays;
+
+import benchmark.Benchmark;
+import benchmark.Boards;
+import benchmark.Harness;
+
+/**
+ * Benchmarks of the hot paths of the model: the board commands, line clears,
+ * BoardData and the piece helpers.
+ * 
+ * Board commands run on the mid-game board of Boards, which has holes and a
+ * ragged surface. Commands that move the piece down are measured together
+ * with a restore of that position, which is measured on its own as well so
+ * that its cost can be taken off. Line clears run on a board set up so that dropping
+ * the current I piece into the well on the right completes 0 to 4 rows.
+ * 
+ * Besides the Harness options, --sizes takes the board sizes to measure as a
+ * comma separated list of WIDTHxHEIGHT, 10x20,20x40 by default. The class is
+ * in package model to reach the package-private parts of the board.
+ */
+public final class ModelBenchmark {
+
+    /**
+     * Board sizes measured by default.
+     */
+    private static final String DEFAULT_SIZES = "10x20,20x40";
+
+    /**
+     * Seed of the placements that stack the mid-game board.
+     */
+    private static final long SEED = 305;
+
+    /**
+     * Calls of down or step measured after each restore.
+     */
+    private static final int DOWNS = 8;
+
+    /**
+     * Most lines a single piece can clear.
+     */
+    private static final int MAX_LINES = 4;
+
+    /**
+     * Length of the I piece.
+     */
+    private static final int I_LENGTH = 4;
+
+    /**
+     * Number of BoardData kept alive at once so that creating them cannot be
+     * optimized away; a power of two.
+     */
+    private static final int RING = 64;
+
+    /**
+     * Column and row at which the pieces for getBoardPoints are placed.
+     */
+    private static final int PIECE_POSITION = 5;
+
+    /**
+     * Text between a benchmark name and its board size.
+     */
+    private static final String SIZE = " ";
+
+    /**
+     * Constructor.
+     */
+    private ModelBenchmark() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     * 
+     * @param theArgs Harness options and --sizes.
+     * @throws IOException if a results or baseline file cannot be used.
+     */
+    public static void main(final String... theArgs) throws IOException {
+        final Harness harness = new Harness("model", theArgs);
+        for (final String size : harness.option("sizes", DEFAULT_SIZES).split(",")) {
+            final int width = Boards.width(size);
+            final int height = Boards.height(size);
+            final BoardSnapshot midGame = Boards.midGame(width, height, SEED).snapshot();
+            moves(harness, new Board(width, height), midGame, SIZE + size);
+            falls(harness, new Board(width, height), midGame, SIZE + size);
+            listened(harness, new Board(width, height), midGame, SIZE + size);
+            for (int lines = 0; lines <= MAX_LINES; lines++) {
+                clears(harness, width, height, lines, SIZE + size);
+            }
+            data(harness, new Board(width, height), midGame, SIZE + size);
+        }
+        pieces(harness);
+        harness.finish();
+    }
+
+    /**
+     * Measures restoring a position and moving the piece sideways and around.
+     * 
+     * @param theHarness the harness.
+     * @param theBoard a board of the size of the snapshot.
+     * @param theSnapshot the mid-game position.
+     * @param theSize the board size for the benchmark names.
+     */
+    private static void moves(final Harness theHarness, final Board theBoard,
+                              final BoardSnapshot theSnapshot, final String theSize) {
+        theHarness.run("Board.restore" + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    theBoard.restore(theSnapshot);
+                }
+                return theBoard.getPieceState();
+            }
+        });
+        theBoard.restore(theSnapshot);
+        theHarness.run("Board.left/right" + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    if ((i & 1) == 0) {
+                        theBoard.left();
+                    }
+                    else {
+                        theBoard.right();
+                    }
+                }
+                return theBoard.getPieceState();
+            }
+        });
+        theBoard.restore(theSnapshot);
+        theHarness.run("Board.rotateCW" + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    theBoard.rotateCW();
+                }
+                return theBoard.getPieceState();
+            }
+        });
+    }
+
+    /**
+     * Measures the commands that move the piece down, each after a restore.
+     * 
+     * @param theHarness the harness.
+     * @param theBoard a board of the size of the snapshot.
+     * @param theSnapshot the mid-game position.
+     * @param theSize the board size for the benchmark names.
+     */
+    private static void falls(final Harness theHarness, final Board theBoard,
+                              final BoardSnapshot theSnapshot, final String theSize) {
+        theHarness.run("Board.restore+down x" + DOWNS + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    theBoard.restore(theSnapshot);
+                    for (int j = 0; j < DOWNS; j++) {
+                        theBoard.down();
+                    }
+                }
+                return theBoard.getPieceState();
+            }
+        });
+        theHarness.run("Board.restore+step x" + DOWNS + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    theBoard.restore(theSnapshot);
+                    for (int j = 0; j < DOWNS; j++) {
+                        theBoard.step();
+                    }
+                }
+                return theBoard.getPieceState();
+            }
+        });
+        theHarness.run("Board.restore+drop" + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    theBoard.restore(theSnapshot);
+                    theBoard.drop();
+                }
+                return theBoard.getPieceState();
+            }
+        });
+    }
+
+    /**
+     * Measures sideways moves with a listener that keeps its own grid, as the
+     * board panel does.
+     * 
+     * @param theHarness the harness.
+     * @param theBoard a board of the size of the snapshot.
+     * @param theSnapshot the mid-game position.
+     * @param theSize the board size for the benchmark names.
+     */
+    private static void listened(final Harness theHarness, final Board theBoard,
+                                 final BoardSnapshot theSnapshot, final String theSize) {
+        final Color[][] grid = new Color[theBoard.getHeight() + Board.SPARE_ROWS][];
+        theBoard.getEvents().addPieceMovedListener(new PieceMovedListener() {
+            @Override
+            public void pieceMoved(final BoardData theData) {
+                if (theData.isFullRefresh()) {
+                    theData.getBoardData().toArray(grid);
+                }
+                else {
+                    theData.applyTo(grid);
+                }
+            }
+        });
+        theBoard.restore(theSnapshot);
+        theHarness.run("Board.left/right listened" + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    if ((i & 1) == 0) {
+                        theBoard.left();
+                    }
+                    else {
+                        theBoard.right();
+                    }
+                }
+                return theBoard.getPieceState();
+            }
+        });
+    }
+
+    /**
+     * Measures a drop that completes a given number of lines, after a restore.
+     * 
+     * @param theHarness the harness.
+     * @param theWidth width of the board.
+     * @param theHeight height of the board.
+     * @param theLines lines the drop completes.
+     * @param theSize the board size for the benchmark names.
+     */
+    private static void clears(final Harness theHarness, final int theWidth,
+                               final int theHeight, final int theLines,
+                               final String theSize) {
+        final Board board = new Board(theWidth, theHeight);
+        final BoardSnapshot snapshot = clearing(board, theLines);
+        theHarness.run("Board.restore+drop clearing " + theLines + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    board.restore(snapshot);
+                    board.drop();
+                }
+                return board.getFeatures().blocks();
+            }
+        });
+    }
+
+    /**
+     * Measures creating a BoardData and building its full grid.
+     * 
+     * @param theHarness the harness.
+     * @param theBoard a board of the size of the snapshot.
+     * @param theSnapshot the mid-game position.
+     * @param theSize the board size for the benchmark names.
+     */
+    private static void data(final Harness theHarness, final Board theBoard,
+                             final BoardSnapshot theSnapshot, final String theSize) {
+        theBoard.restore(theSnapshot);
+        final int state = theBoard.getPieceState();
+        final BoardData[] ring = new BoardData[RING];
+        theHarness.run("BoardData.new" + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    ring[i & (RING - 1)] = new BoardData(theBoard, theBoard.getVersion(),
+                                                         false, state, 0, null, state);
+                }
+                return ring[0].hashCode();
+            }
+        });
+        theHarness.run("BoardData.getBoardData" + theSize, new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                long result = 0;
+                for (int i = 0; i < theOps; i++) {
+                    result += new BoardData(theBoard, theBoard.getVersion(), true, state, 0,
+                                            null, state).getBoardData().size();
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Measures the piece helpers, which do not depend on the board size.
+     * 
+     * @param theHarness the harness.
+     */
+    private static void pieces(final Harness theHarness) {
+        final MovableTetrisPiece[] all =
+            new MovableTetrisPiece[TetrisPiece.values().length * Rotation.values().length];
+        int count = 0;
+        for (final TetrisPiece piece : TetrisPiece.values()) {
+            for (final Rotation rotation : Rotation.values()) {
+                all[count++] = MovableTetrisPiece.valueOf(MovableTetrisPiece.pack(
+                    piece, rotation, PIECE_POSITION, PIECE_POSITION));
+            }
+        }
+        theHarness.run("MovableTetrisPiece.getBoardPoints", new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                long result = 0;
+                for (int i = 0; i < theOps; i++) {
+                    final Point[] points = all[i % all.length].getBoardPoints();
+                    result += points[points.length - 1].x();
+                }
+                return result;
+            }
+        });
+        theHarness.run("TetrisPiece.random", new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                long result = 0;
+                for (int i = 0; i < theOps; i++) {
+                    result += TetrisPiece.random().ordinal();
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Sets up a board on which dropping the current piece completes a given
+     * number of lines. Vertical I pieces fill the bottom four rows except for
+     * the last five columns; horizontal I pieces fill the four columns before
+     * the last in as many rows as lines are wanted; the last column is a well
+     * the current I piece hangs over, standing upright.
+     * 
+     * @param theBoard an empty board at least five columns wide.
+     * @param theLines lines to complete, from 0 to 4.
+     * @return the position.
+     */
+    private static BoardSnapshot clearing(final Board theBoard, final int theLines) {
+        theBoard.setNonRandomPieces(Arrays.asList(TetrisPiece.I));
+        theBoard.clear();
+        final BoardGrid grid = theBoard.getGrid();
+        final int well = theBoard.getWidth() - 1;
+        for (int col = 0; col < well - I_LENGTH; col++) {
+            grid.freeze(at(Rotation.QUARTER, col, 0));
+        }
+        for (int row = 0; row < theLines; row++) {
+            grid.freeze(at(Rotation.NONE, well - I_LENGTH, row));
+        }
+        theBoard.rotateCW();
+        for (int col = 0; col < well; col++) {
+            theBoard.right();
+        }
+        return theBoard.snapshot();
+    }
+
+    /**
+     * Returns the packed state of an I piece whose lowest, leftmost block is
+     * at a given cell.
+     * 
+     * @param theRotation the rotation of the piece.
+     * @param theColumn the column of the block.
+     * @param theRow the row of the block.
+     * @return the packed state.
+     */
+    private static int at(final Rotation theRotation, final int theColumn, final int theRow) {
+        return MovableTetrisPiece.pack(TetrisPiece.I, theRotation,
+                                       theColumn - TetrisPiece.I.minX(theRotation),
+                                       theRow - TetrisPiece.I.minY(theRotation));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Tuan Huynh TCSS 305A - Tetris
+ */
+
+package view;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import javax.swing.JComponent;
+
+import benchmark.Benchmark;
+import benchmark.Boards;
+import benchmark.Harness;
+
+import model.Board;
+import model.TetrisPiece;
+
+/**
+ * Benchmarks of painting the game panels offscreen, without a display.
+ * 
+ * Each panel is painted with paint, which calls its paintComponent, into a
+ * BufferedImage of the size it has in the window, through a Graphics created
+ * for the frame as Swing creates one for each paint. The board panel shows
+ * the mid-game board of Boards, with its ghost piece. Times are per frame, and
+ * so are the allocations. The last benchmark of each size paints all four
+ * panels, as one frame of the game window.
+ * 
+ * Besides the Harness options, --sizes takes the board sizes as a comma
+ * separated list of WIDTHxHEIGHT, 10x20,20x40 by default, and --tiles the tile
+ * sizes in pixels, 15,25,40 by default. The suite sets java.awt.headless, so it
+ * also runs where there is no display.
+ */
+public final class RenderBenchmark {
+
+    /**
+     * Board sizes measured by default.
+     */
+    private static final String DEFAULT_SIZES = "10x20,20x40";
+
+    /**
+     * Tile sizes measured by default.
+     */
+    private static final String DEFAULT_TILES = "15,25,40";
+
+    /**
+     * Separates the values of a list option.
+     */
+    private static final String COMMA = ",";
+
+    /**
+     * Seed of the mid-game board.
+     */
+    private static final long SEED = 305;
+
+    /**
+     * Margin around the board, as BoardPanel draws it.
+     */
+    private static final int PADDING = 10;
+
+    /**
+     * Width and height of the side panels in tiles, a little more than their
+     * four tile box.
+     */
+    private static final int SIDE_TILES = 6;
+
+    /**
+     * Score shown on the score panel, two digits wide.
+     */
+    private static final int SCORE = 42;
+
+    /**
+     * Constructor.
+     */
+    private RenderBenchmark() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     * 
+     * @param theArgs Harness options, --sizes and --tiles.
+     * @throws IOException if a results or baseline file cannot be used.
+     */
+    public static void main(final String... theArgs) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        final Harness harness = new Harness("view", theArgs);
+        for (final String size : harness.option("sizes", DEFAULT_SIZES).split(COMMA)) {
+            final Board board = Boards.midGame(Boards.width(size), Boards.height(size), SEED);
+            for (final String tiles : harness.option("tiles", DEFAULT_TILES).split(COMMA)) {
+                final int tile = Integer.parseInt(tiles);
+                final String name = " " + size + " tile " + tile;
+                final JComponent[] panels = {boardPanel(board, tile),
+                    previewPanel(tile), scorePanel(tile), levelPanel(tile)};
+                for (final JComponent panel : panels) {
+                    harness.run(panel.getClass().getSimpleName() + ".paint" + name,
+                                frames(panel));
+                }
+                harness.run("all panels.paint" + name, frames(panels));
+            }
+        }
+        harness.finish();
+    }
+
+    /**
+     * Creates a board panel that shows a board, sized to fit it.
+     * 
+     * @param theBoard the board.
+     * @param theTile the tile size.
+     * @return the panel.
+     */
+    private static BoardPanel boardPanel(final Board theBoard, final int theTile) {
+        final BoardPanel result = new BoardPanel(theBoard.getHeight(), theTile);
+        result.setBoard(theBoard);
+        theBoard.getEvents().addPieceMovedListener(result);
+        // a restore sends the full refresh that fills the panel's grid
+        theBoard.restore(theBoard.snapshot());
+        result.setSize(theBoard.getWidth() * theTile + 2 * PADDING,
+                       theBoard.getHeight() * theTile + 2 * PADDING);
+        return result;
+    }
+
+    /**
+     * Creates a preview panel that shows the T piece.
+     * 
+     * @param theTile the tile size.
+     * @return the panel.
+     */
+    private static PreviewBoxPanel previewPanel(final int theTile) {
+        final PreviewBoxPanel result = new PreviewBoxPanel(theTile);
+        result.nextPiece(TetrisPiece.T);
+        result.setSize(theTile * SIDE_TILES, theTile * SIDE_TILES);
+        return result;
+    }
+
+    /**
+     * Creates a score panel that shows a two digit score.
+     * 
+     * @param theTile the tile size.
+     * @return the panel.
+     */
+    private static ScorePanel scorePanel(final int theTile) {
+        final ScorePanel result = new ScorePanel(theTile);
+        result.setScore(SCORE);
+        result.setSize(theTile * SIDE_TILES, theTile * SIDE_TILES);
+        return result;
+    }
+
+    /**
+     * Creates a level panel. It has no window to tell of a new level, so its
+     * score stays at zero.
+     * 
+     * @param theTile the tile size.
+     * @return the panel.
+     */
+    private static LevelPanel levelPanel(final int theTile) {
+        final LevelPanel result = new LevelPanel(theTile, null);
+        result.setSize(theTile * SIDE_TILES, theTile * SIDE_TILES);
+        return result;
+    }
+
+    /**
+     * Returns a benchmark that paints panels, each into an image of its own
+     * size, once per operation.
+     * 
+     * @param thePanels the panels.
+     * @return the benchmark.
+     */
+    private static Benchmark frames(final JComponent... thePanels) {
+        final Graphics2D[] screens = new Graphics2D[thePanels.length];
+        for (int i = 0; i < thePanels.length; i++) {
+            screens[i] = new BufferedImage(thePanels[i].getWidth(), thePanels[i].getHeight(),
+                                           BufferedImage.TYPE_INT_RGB).createGraphics();
+        }
+        return new Benchmark() {
+            @Override
+            public long run(final int theOps) {
+                for (int i = 0; i < theOps; i++) {
+                    for (int j = 0; j < thePanels.length; j++) {
+                        final Graphics graphics = screens[j].create();
+                        thePanels[j].paint(graphics);
+                        graphics.dispose();
+                    }
+                }
+                return screens[0].getColor().getRGB();
+            }
+        };
+    }
+}
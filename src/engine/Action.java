@@ -0,0 +1,82 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import model.Board;
+
+/**
+ * The moves a player can make, each applied to a Board as one board command.
+ */
+public enum Action {
+
+    /**
+     * Move the current piece one column left.
+     */
+    LEFT {
+        @Override
+        public void applyTo(final Board theBoard) {
+            theBoard.left();
+        }
+    },
+
+    /**
+     * Move the current piece one column right.
+     */
+    RIGHT {
+        @Override
+        public void applyTo(final Board theBoard) {
+            theBoard.right();
+        }
+    },
+
+    /**
+     * Move the current piece one row down, freezing it if it cannot move.
+     */
+    DOWN {
+        @Override
+        public void applyTo(final Board theBoard) {
+            theBoard.down();
+        }
+    },
+
+    /**
+     * Drop the current piece to where it lands and freeze it.
+     */
+    DROP {
+        @Override
+        public void applyTo(final Board theBoard) {
+            theBoard.drop();
+        }
+    },
+
+    /**
+     * Rotate the current piece clockwise.
+     */
+    ROTATE_CW {
+        @Override
+        public void applyTo(final Board theBoard) {
+            theBoard.rotateCW();
+        }
+    },
+
+    /**
+     * Rotate the current piece counter-clockwise.
+     */
+    ROTATE_CCW {
+        @Override
+        public void applyTo(final Board theBoard) {
+            theBoard.rotateCCW();
+        }
+    };
+
+    /**
+     * Applies this action to a board.
+     * 
+     * @param theBoard the board to move on.
+     */
+    public abstract void applyTo(Board theBoard);
+}
@@ -0,0 +1,99 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Heuristic;
+import model.Placement;
+import model.PlacementSearch;
+
+/**
+ * A player that puts every piece where a PlacementSearch finds best. It places
+ * one piece per tick, turning, shifting and dropping it at once, so games run
+ * as fast as the search allows.
+ */
+public final class BotPlayer implements Player {
+
+    /**
+     * Finds the placements.
+     */
+    private final PlacementSearch mySearch;
+
+    /**
+     * Creates a bot.
+     * 
+     * @param theSearch finds the placements; it is not shared with other
+     *            players.
+     */
+    public BotPlayer(final PlacementSearch theSearch) {
+        mySearch = theSearch;
+    }
+
+    /**
+     * Returns a factory for bots that each search single threaded with a
+     * heuristic, as suits games that already run in parallel.
+     * 
+     * @param theHeuristic scores the boards.
+     * @return the factory.
+     */
+    public static PlayerFactory factory(final Heuristic theHeuristic) {
+        return factory(theHeuristic, PlacementSearch.DEFAULT_BEAM);
+    }
+
+    /**
+     * Returns a factory for bots that each search single threaded with a
+     * heuristic and a beam.
+     * 
+     * @param theHeuristic scores the boards.
+     * @param theBeam placements to look ahead from, or zero not to look ahead.
+     * @return the factory.
+     */
+    public static PlayerFactory factory(final Heuristic theHeuristic, final int theBeam) {
+        return new PlayerFactory() {
+            @Override
+            public Player newPlayer(final long theSeed) {
+                return new BotPlayer(new PlacementSearch(theHeuristic, theBeam, null));
+            }
+        };
+    }
+
+    /**
+     * Returns the actions that carry out a placement, ending with the drop.
+     * 
+     * @param thePlacement the placement.
+     * @return the actions, in order.
+     */
+    public static List<Action> actions(final Placement thePlacement) {
+        final List<Action> result = new ArrayList<Action>();
+        for (int i = 0; i < thePlacement.getRotations(); i++) {
+            result.add(Action.ROTATE_CW);
+        }
+        for (int i = 0; i < Math.abs(thePlacement.getShift()); i++) {
+            if (thePlacement.getShift() < 0) {
+                result.add(Action.LEFT);
+            }
+            else {
+                result.add(Action.RIGHT);
+            }
+        }
+        result.add(Action.DROP);
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void play(final HeadlessGame theGame) {
+        final Placement placement = mySearch.search(theGame.getBoard());
+        if (placement != null) {
+            for (final Action action : actions(placement)) {
+                theGame.apply(action);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import model.Board;
+
+/**
+ * The board commands a game is made of: the player's actions and the steps of
+ * gravity. A replay is a list of commands, each applied to a Board in turn.
+ * 
+ * Every command but STEP makes an Action and applies it, so the moves are
+ * defined once. Replay files store the ordinals of the commands, so new
+ * commands go at the end.
+ */
+public enum Command {
+
+    /**
+     * Move the current piece one column left.
+     */
+    LEFT(Action.LEFT),
+
+    /**
+     * Move the current piece one column right.
+     */
+    RIGHT(Action.RIGHT),
+
+    /**
+     * Move the current piece one row down, freezing it if it cannot move.
+     */
+    DOWN(Action.DOWN),
+
+    /**
+     * Drop the current piece to where it lands and freeze it.
+     */
+    DROP(Action.DROP),
+
+    /**
+     * Rotate the current piece clockwise.
+     */
+    ROTATE_CW(Action.ROTATE_CW),
+
+    /**
+     * Rotate the current piece counter-clockwise.
+     */
+    ROTATE_CCW(Action.ROTATE_CCW),
+
+    /**
+     * Advance the board by one step of gravity.
+     */
+    STEP(null) {
+        @Override
+        public void applyTo(final Board theBoard) {
+            theBoard.step();
+        }
+    };
+
+    /**
+     * Every command, indexed by ordinal.
+     */
+    private static final Command[] COMMANDS = values();
+
+    /**
+     * The command that makes each action.
+     */
+    private static final Map<Action, Command> BY_ACTION =
+        new EnumMap<Action, Command>(Action.class);
+
+    static {
+        for (final Command command : COMMANDS) {
+            if (command.myAction != null) {
+                BY_ACTION.put(command.myAction, command);
+            }
+        }
+    }
+
+    /**
+     * The action this command makes, or null for STEP.
+     */
+    private final Action myAction;
+
+    /**
+     * Creates a command.
+     * 
+     * @param theAction the action the command makes, or null.
+     */
+    Command(final Action theAction) {
+        myAction = theAction;
+    }
+
+    /**
+     * Applies this command to a board.
+     * 
+     * @param theBoard the board to move on.
+     */
+    public void applyTo(final Board theBoard) {
+        myAction.applyTo(theBoard);
+    }
+
+    /**
+     * Returns the action this command makes.
+     * 
+     * @return the action, or null for STEP.
+     */
+    public Action getAction() {
+        return myAction;
+    }
+
+    /**
+     * Returns the command that makes a player action.
+     * 
+     * @param theAction the action.
+     * @return the command.
+     */
+    public static Command of(final Action theAction) {
+        return BY_ACTION.get(theAction);
+    }
+
+    /**
+     * Returns the command with an ordinal.
+     * 
+     * @param theOrdinal the ordinal.
+     * @return the command.
+     * @throws ArrayIndexOutOfBoundsException if there is no such command.
+     */
+    static Command forOrdinal(final int theOrdinal) {
+        return COMMANDS[theOrdinal];
+    }
+}
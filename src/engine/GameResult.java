@@ -0,0 +1,150 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+/**
+ * The outcome of one game of a Simulation.
+ */
+public final class GameResult {
+
+    /**
+     * Seed the game was played from.
+     */
+    private final long mySeed;
+
+    /**
+     * Ticks the game lasted.
+     */
+    private final long myTicks;
+
+    /**
+     * Actions the player applied.
+     */
+    private final long myActions;
+
+    /**
+     * Pieces frozen.
+     */
+    private final int myPieces;
+
+    /**
+     * Lines cleared.
+     */
+    private final int myLines;
+
+    /**
+     * Final score.
+     */
+    private final int myScore;
+
+    /**
+     * Final level.
+     */
+    private final int myLevel;
+
+    /**
+     * True if the game ended by topping out rather than by a limit.
+     */
+    private final boolean myGameOver;
+
+    /**
+     * Records the outcome of a game that has stopped.
+     * 
+     * @param theSeed seed the game was played from.
+     * @param theGame the game.
+     */
+    GameResult(final long theSeed, final HeadlessGame theGame) {
+        mySeed = theSeed;
+        myTicks = theGame.getTick();
+        myActions = theGame.getActions();
+        myPieces = theGame.getPieces();
+        myLines = theGame.getLines();
+        myScore = theGame.getScore();
+        myLevel = theGame.getLevel();
+        myGameOver = theGame.isGameOver();
+    }
+
+    /**
+     * Returns the seed the game was played from; running the same simulation
+     * with this seed plays the same game.
+     * 
+     * @return the seed.
+     */
+    public long getSeed() {
+        return mySeed;
+    }
+
+    /**
+     * Returns the ticks the game lasted.
+     * 
+     * @return the tick count.
+     */
+    public long getTicks() {
+        return myTicks;
+    }
+
+    /**
+     * Returns the actions the player applied.
+     * 
+     * @return the action count.
+     */
+    public long getActions() {
+        return myActions;
+    }
+
+    /**
+     * Returns the pieces frozen.
+     * 
+     * @return the piece count.
+     */
+    public int getPieces() {
+        return myPieces;
+    }
+
+    /**
+     * Returns the lines cleared.
+     * 
+     * @return the line count.
+     */
+    public int getLines() {
+        return myLines;
+    }
+
+    /**
+     * Returns the final score, counted as the score panel counts it.
+     * 
+     * @return the score.
+     */
+    public int getScore() {
+        return myScore;
+    }
+
+    /**
+     * Returns the final level, counted as the level panel counts it.
+     * 
+     * @return the level.
+     */
+    public int getLevel() {
+        return myLevel;
+    }
+
+    /**
+     * Whether the game ended by topping out rather than by reaching a limit.
+     * 
+     * @return True if the game was over.
+     */
+    public boolean isGameOver() {
+        return myGameOver;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "GameResult[seed=" + mySeed + ", pieces=" + myPieces + ", lines=" + myLines
+               + ", score=" + myScore + ", level=" + myLevel + ", ticks=" + myTicks + ']';
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import model.BoardData;
+import model.BoardEvents;
+import model.GameStatusListener;
+import model.LinesClearedListener;
+import model.PieceLockedListener;
+
+/**
+ * Counts the pieces frozen and lines cleared in one game and whether it is
+ * over, and scores it as the windowed game does: one point per line, and a new
+ * level every five lines.
+ * 
+ * HeadlessGame, ReplayPlayer and the game window all keep their score with a
+ * tally, so the scores of a replay are worked out the same way wherever it is
+ * recorded or played.
+ */
+public final class GameTally
+    implements PieceLockedListener, LinesClearedListener, GameStatusListener {
+
+    /**
+     * Lines cleared per level.
+     */
+    public static final int LINES_PER_LEVEL = 5;
+
+    /**
+     * Pieces frozen.
+     */
+    private int myPieces;
+
+    /**
+     * Lines cleared.
+     */
+    private int myLines;
+
+    /**
+     * True once the game is over.
+     */
+    private boolean myGameOver;
+
+    /**
+     * Starts counting the events of a board.
+     * 
+     * @param theEvents the events of the board.
+     */
+    public void listenTo(final BoardEvents theEvents) {
+        theEvents.addPieceLockedListener(this);
+        theEvents.addLinesClearedListener(this);
+        theEvents.addGameStatusListener(this);
+    }
+
+    /**
+     * Sets the counts back, as at the start of a game or at a keyframe. The
+     * game status is left to the board, which sends it when it changes.
+     * 
+     * @param thePieces pieces frozen.
+     * @param theLines lines cleared.
+     */
+    void restore(final int thePieces, final int theLines) {
+        myPieces = thePieces;
+        myLines = theLines;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void pieceLocked(final BoardData theData) {
+        myPieces++;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void linesCleared(final int theLines) {
+        myLines += theLines;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void gameStatusChanged(final boolean theGameOver) {
+        myGameOver = theGameOver;
+    }
+
+    /**
+     * Returns the pieces frozen.
+     * 
+     * @return the piece count.
+     */
+    public int getPieces() {
+        return myPieces;
+    }
+
+    /**
+     * Returns the lines cleared.
+     * 
+     * @return the line count.
+     */
+    public int getLines() {
+        return myLines;
+    }
+
+    /**
+     * Returns the score: one point per line cleared.
+     * 
+     * @return the score.
+     */
+    public int getScore() {
+        return myLines;
+    }
+
+    /**
+     * Returns the level: one level per five lines cleared.
+     * 
+     * @return the level.
+     */
+    public int getLevel() {
+        return myLines / LINES_PER_LEVEL;
+    }
+
+    /**
+     * Whether the game is over.
+     * 
+     * @return True if the game is over.
+     */
+    public boolean isGameOver() {
+        return myGameOver;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import model.Board;
+
+/**
+ * Runs a game of Tetris without a user interface, on whatever thread calls it.
+ * 
+ * Time is an explicit tick clock instead of a Swing Timer: each call to tick
+ * advances the clock by one tick, and the current piece falls one row every
+ * gravityInterval() ticks. A tick stands for 50 ms of the windowed game, so
+ * gravity starts at one row every 20 ticks and speeds up by 3 ticks per level,
+ * as the timer in the windowed game does. Scoring follows the windowed game as
+ * well: one point per line, and a new level every five lines.
+ * 
+ * Nothing here touches AWT. Board events are delivered on the calling thread,
+ * and only locks, line clears and status changes are listened to, so the board
+ * builds no BoardData for moves.
+ * 
+ * A game given a ReplayWriter records every action and gravity step in it, at
+ * the tick it happened. Failures to write the replay are thrown as
+ * UncheckedIOException from apply and tick.
+ */
+public final class HeadlessGame {
+
+    /**
+     * Milliseconds of the windowed game that one tick stands for.
+     */
+    public static final int TICK_MILLIS = 50;
+
+    /**
+     * Ticks between gravity steps at level zero.
+     */
+    public static final int START_INTERVAL = 20;
+
+    /**
+     * Ticks taken off the gravity interval at each level.
+     */
+    public static final int INTERVAL_STEP = 3;
+
+    /**
+     * Fewest ticks between gravity steps.
+     */
+    public static final int MIN_INTERVAL = 1;
+
+    /**
+     * The board the game is played on.
+     */
+    private final Board myBoard;
+
+    /**
+     * Ticks since the game started.
+     */
+    private long myTick;
+
+    /**
+     * Tick at which gravity next moves the current piece down.
+     */
+    private long myNextGravity;
+
+    /**
+     * Actions applied since the game started.
+     */
+    private long myActions;
+
+    /**
+     * Pieces, lines and score since the game started.
+     */
+    private final GameTally myTally;
+
+    /**
+     * Records the commands of the game, or null.
+     */
+    private ReplayWriter myRecorder;
+
+    /**
+     * Creates a headless game on a new board. Call newGame to start playing.
+     * 
+     * @param theWidth width of the board.
+     * @param theHeight height of the board.
+     */
+    public HeadlessGame(final int theWidth, final int theHeight) {
+        this(new Board(theWidth, theHeight));
+    }
+
+    /**
+     * Creates a headless game on a board, which may be set up first, for
+     * instance with setPieceGenerator. Call newGame to start playing.
+     * 
+     * @param theBoard the board to play on.
+     */
+    public HeadlessGame(final Board theBoard) {
+        myBoard = theBoard;
+        myTally = new GameTally();
+        myTally.listenTo(myBoard.getEvents());
+    }
+
+    /**
+     * Starts a new game: clears the board and resets the clock and score.
+     */
+    public void newGame() {
+        myTick = 0;
+        myNextGravity = START_INTERVAL;
+        myActions = 0;
+        myTally.restore(0, 0);
+        myBoard.clear();
+    }
+
+    /**
+     * Applies a player action between ticks. Nothing happens once the game is
+     * over.
+     * 
+     * @param theAction the action.
+     * @return True if the action was applied; false if the game is over.
+     */
+    public boolean apply(final Action theAction) {
+        final boolean result = !myTally.isGameOver();
+        if (result) {
+            myActions++;
+            theAction.applyTo(myBoard);
+            record(Command.of(theAction));
+        }
+        return result;
+    }
+
+    /**
+     * Advances the clock by one tick, moving the current piece down when
+     * gravity is due. Nothing happens once the game is over.
+     */
+    public void tick() {
+        if (!myTally.isGameOver()) {
+            myTick++;
+            if (myTick >= myNextGravity) {
+                myBoard.step();
+                record(Command.STEP);
+                myNextGravity = myTick + gravityInterval();
+            }
+        }
+    }
+
+    /**
+     * Advances the clock by a number of ticks, stopping early if the game
+     * ends.
+     * 
+     * @param theTicks the number of ticks.
+     */
+    public void advance(final long theTicks) {
+        for (long i = 0; i < theTicks && !myTally.isGameOver(); i++) {
+            tick();
+        }
+    }
+
+    /**
+     * Sets the writer that records the commands of the game from now on. For
+     * a replay that plays again, set it before newGame, on a board given a new
+     * generator of the recorded kind and seed. The writer stays open; finish
+     * it when the game ends.
+     * 
+     * @param theRecorder the writer, or null to stop recording.
+     */
+    public void setRecorder(final ReplayWriter theRecorder) {
+        myRecorder = theRecorder;
+    }
+
+    /**
+     * Returns the ticks between gravity steps at the current level.
+     * 
+     * @return the gravity interval in ticks.
+     */
+    public int gravityInterval() {
+        return Math.max(MIN_INTERVAL, START_INTERVAL - getLevel() * INTERVAL_STEP);
+    }
+
+    /**
+     * Returns the board the game is played on.
+     * 
+     * @return the board.
+     */
+    public Board getBoard() {
+        return myBoard;
+    }
+
+    /**
+     * Returns the ticks since the game started.
+     * 
+     * @return the tick count.
+     */
+    public long getTick() {
+        return myTick;
+    }
+
+    /**
+     * Returns the actions applied since the game started.
+     * 
+     * @return the action count.
+     */
+    public long getActions() {
+        return myActions;
+    }
+
+    /**
+     * Returns the pieces frozen since the game started.
+     * 
+     * @return the piece count.
+     */
+    public int getPieces() {
+        return myTally.getPieces();
+    }
+
+    /**
+     * Returns the lines cleared since the game started.
+     * 
+     * @return the line count.
+     */
+    public int getLines() {
+        return myTally.getLines();
+    }
+
+    /**
+     * Returns the score: one point per line cleared.
+     * 
+     * @return the score.
+     */
+    public int getScore() {
+        return myTally.getScore();
+    }
+
+    /**
+     * Returns the level: one level per five lines cleared.
+     * 
+     * @return the level.
+     */
+    public int getLevel() {
+        return myTally.getLevel();
+    }
+
+    /**
+     * Whether the game is over.
+     * 
+     * @return True if the game is over.
+     */
+    public boolean isGameOver() {
+        return myTally.isGameOver();
+    }
+
+    /**
+     * Records a command at the current tick, if the game is recorded.
+     * 
+     * @param theCommand the command just applied.
+     * @throws UncheckedIOException if the replay cannot be written.
+     */
+    private void record(final Command theCommand) {
+        if (myRecorder != null) {
+            try {
+                myRecorder.record(myTick, theCommand);
+            }
+            catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+/**
+ * Plays a HeadlessGame: a bot, a scripted input or a recorded one. The game
+ * asks the player for its move before every tick.
+ */
+public interface Player {
+
+    /**
+     * Makes the moves for one tick by applying any number of actions to the
+     * game, possibly none.
+     * 
+     * @param theGame the game being played.
+     */
+    void play(HeadlessGame theGame);
+}
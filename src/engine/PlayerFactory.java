@@ -0,0 +1,23 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+/**
+ * Creates the player for each game of a Simulation. Games run on several
+ * threads at once, so every game gets a player of its own.
+ */
+public interface PlayerFactory {
+
+    /**
+     * Creates a player for one game.
+     * 
+     * @param theSeed a seed for any random choices the player makes, so that
+     *            the game can be played again exactly.
+     * @return a new player.
+     */
+    Player newPlayer(long theSeed);
+}
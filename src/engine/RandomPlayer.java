@@ -0,0 +1,58 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * A player that makes a random move on some ticks and waits on the others.
+ * It is a baseline for simulations and a source of varied games.
+ */
+public final class RandomPlayer implements Player {
+
+    /**
+     * Creates a RandomPlayer for each game.
+     */
+    public static final PlayerFactory FACTORY = new PlayerFactory() {
+        @Override
+        public Player newPlayer(final long theSeed) {
+            return new RandomPlayer(theSeed);
+        }
+    };
+
+    /**
+     * Every action, indexed by ordinal.
+     */
+    private static final Action[] ACTIONS = Action.values();
+
+    /**
+     * One in this many ticks gets a move.
+     */
+    private static final int MOVE_ODDS = 4;
+
+    /**
+     * The random stream.
+     */
+    private final SplittableRandom myRandom;
+
+    /**
+     * Creates a random player.
+     * 
+     * @param theSeed the seed of its moves.
+     */
+    public RandomPlayer(final long theSeed) {
+        myRandom = new SplittableRandom(theSeed);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void play(final HeadlessGame theGame) {
+        if (myRandom.nextInt(MOVE_ODDS) == 0) {
+            theGame.apply(ACTIONS[myRandom.nextInt(ACTIONS.length)]);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import model.HistoryGenerator;
+import model.PieceGenerator;
+import model.SevenBagGenerator;
+import model.UniformGenerator;
+
+/**
+ * The seeded piece generators a Simulation can deal its games from.
+ */
+public enum Randomizer {
+
+    /**
+     * Every piece chosen independently, as in the windowed game.
+     */
+    UNIFORM {
+        @Override
+        public PieceGenerator create(final long theSeed) {
+            return new UniformGenerator(theSeed);
+        }
+    },
+
+    /**
+     * Pieces dealt from shuffled bags of seven.
+     */
+    SEVEN_BAG {
+        @Override
+        public PieceGenerator create(final long theSeed) {
+            return new SevenBagGenerator(theSeed);
+        }
+    },
+
+    /**
+     * Pieces rerolled when they were dealt recently.
+     */
+    HISTORY {
+        @Override
+        public PieceGenerator create(final long theSeed) {
+            return new HistoryGenerator(theSeed);
+        }
+    };
+
+    /**
+     * Creates a generator of this kind.
+     * 
+     * @param theSeed the seed.
+     * @return a new generator.
+     */
+    public abstract PieceGenerator create(long theSeed);
+}
@@ -0,0 +1,465 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import model.Board;
+
+/**
+ * A recorded game, read from a replay file written by ReplayWriter.
+ * 
+ * A replay file starts with a header: the magic number TRPL, the format
+ * version byte, the board width and height as varints, the Randomizer ordinal
+ * byte and the 8 byte seed of the piece generator. Then come the commands, one
+ * varint each, holding the ticks since the previous command shifted left by
+ * three bits and or'ed with the Command ordinal; the END code closes them. Last
+ * is a trailer with the results the game claimed: the last tick, lines, score
+ * and level as varints, a game over byte and the 8 byte stateHash of the final
+ * board. Varints are unsigned, seven bits per byte, low bits first, so a
+ * command within 15 ticks of the previous one takes a single byte.
+ * 
+ * The game starts on a new board of the recorded size that is given a new
+ * generator from the seed and then cleared once, as newBoard does; applying
+ * the commands in order to that board plays the game again exactly. A file
+ * that ends before its trailer, such as one from a game that was still running
+ * when the program stopped, reads as an unfinished replay of the commands that
+ * were written out.
+ */
+public final class Replay {
+
+    /**
+     * First four bytes of a replay file, "TRPL".
+     */
+    static final int MAGIC = 0x5452504C;
+
+    /**
+     * Version of the format written.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * Bits of a command code that hold the Command ordinal.
+     */
+    static final int COMMAND_BITS = 3;
+
+    /**
+     * Code that ends the commands, one more than the last Command ordinal.
+     */
+    static final int END = (1 << COMMAND_BITS) - 1;
+
+    /**
+     * Bits of a varint byte that hold the value.
+     */
+    static final int VARINT_BITS = 7;
+
+    /**
+     * Mask of the value bits of a varint byte.
+     */
+    static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Most bits a varint can hold.
+     */
+    private static final int LONG_BITS = 64;
+
+    /**
+     * Tallest board a replay may have.
+     */
+    private static final int MAX_HEIGHT = 1024;
+
+    /**
+     * Initial room for commands when reading.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Width of the board.
+     */
+    private final int myWidth;
+
+    /**
+     * Height of the board.
+     */
+    private final int myHeight;
+
+    /**
+     * Kind of piece generator.
+     */
+    private final Randomizer myRandomizer;
+
+    /**
+     * Seed of the piece generator.
+     */
+    private final long mySeed;
+
+    /**
+     * Tick of each command.
+     */
+    private long[] myTicks;
+
+    /**
+     * Ordinal of each command.
+     */
+    private byte[] myCommands;
+
+    /**
+     * Number of commands.
+     */
+    private int mySize;
+
+    /**
+     * True if the file had its trailer.
+     */
+    private boolean myFinished;
+
+    /**
+     * Last tick of the game, as claimed.
+     */
+    private long myLastTick;
+
+    /**
+     * Lines cleared, as claimed.
+     */
+    private int myLines;
+
+    /**
+     * Score, as claimed.
+     */
+    private int myScore;
+
+    /**
+     * Level, as claimed.
+     */
+    private int myLevel;
+
+    /**
+     * True if the game ended in a game over, as claimed.
+     */
+    private boolean myGameOver;
+
+    /**
+     * stateHash of the final board, as claimed.
+     */
+    private long myStateHash;
+
+    /**
+     * Reads the header of a replay.
+     * 
+     * @param theBuffer the file contents, positioned after the version byte.
+     * @throws IOException if the header is damaged.
+     */
+    private Replay(final ByteBuffer theBuffer) throws IOException {
+        myWidth = readSize(theBuffer, Board.MAX_WIDTH);
+        myHeight = readSize(theBuffer, MAX_HEIGHT);
+        final int randomizer = theBuffer.get();
+        if (randomizer < 0 || randomizer >= Randomizer.values().length) {
+            throw new IOException("Unknown piece generator " + randomizer);
+        }
+        myRandomizer = Randomizer.values()[randomizer];
+        mySeed = theBuffer.getLong();
+        myTicks = new long[INITIAL_CAPACITY];
+        myCommands = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Reads a replay file.
+     * 
+     * @param theFile the file.
+     * @return the replay.
+     * @throws IOException if the file cannot be read or is not a replay.
+     */
+    public static Replay read(final Path theFile) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(theFile)));
+    }
+
+    /**
+     * Reads a replay from the remaining bytes of a buffer, such as a mapped
+     * file. The buffer is left positioned after the replay.
+     * 
+     * @param theBuffer the buffer, in big-endian byte order.
+     * @return the replay.
+     * @throws IOException if the bytes are not a replay.
+     */
+    public static Replay read(final ByteBuffer theBuffer) throws IOException {
+        final Replay result;
+        try {
+            if (theBuffer.getInt() != MAGIC) {
+                throw new IOException("Not a replay file");
+            }
+            final byte version = theBuffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported replay version " + version);
+            }
+            result = new Replay(theBuffer);
+        }
+        catch (final BufferUnderflowException e) {
+            throw new EOFException("Replay header is incomplete");
+        }
+        result.readCommands(theBuffer);
+        return result;
+    }
+
+    /**
+     * Creates the board the game starts on: a new board of the recorded size,
+     * given a new generator from the recorded seed and cleared once.
+     * 
+     * @return the board, ready for the first command.
+     */
+    public Board newBoard() {
+        final Board result = new Board(myWidth, myHeight);
+        result.setPieceGenerator(myRandomizer.create(mySeed));
+        result.clear();
+        return result;
+    }
+
+    /**
+     * Returns the width of the board.
+     * 
+     * @return the width.
+     */
+    public int getWidth() {
+        return myWidth;
+    }
+
+    /**
+     * Returns the height of the board.
+     * 
+     * @return the height.
+     */
+    public int getHeight() {
+        return myHeight;
+    }
+
+    /**
+     * Returns the kind of piece generator.
+     * 
+     * @return the randomizer.
+     */
+    public Randomizer getRandomizer() {
+        return myRandomizer;
+    }
+
+    /**
+     * Returns the seed of the piece generator.
+     * 
+     * @return the seed.
+     */
+    public long getSeed() {
+        return mySeed;
+    }
+
+    /**
+     * Returns the number of commands.
+     * 
+     * @return the command count.
+     */
+    public int size() {
+        return mySize;
+    }
+
+    /**
+     * Returns the tick at which a command was given.
+     * 
+     * @param theIndex the index of the command, from 0 to size() - 1.
+     * @return the tick.
+     */
+    public long getTick(final int theIndex) {
+        return myTicks[checkIndex(theIndex)];
+    }
+
+    /**
+     * Returns a command.
+     * 
+     * @param theIndex the index of the command, from 0 to size() - 1.
+     * @return the command.
+     */
+    public Command getCommand(final int theIndex) {
+        return Command.forOrdinal(myCommands[checkIndex(theIndex)]);
+    }
+
+    /**
+     * Whether the file had its trailer. The results of an unfinished replay
+     * are all zero.
+     * 
+     * @return True if the replay is finished.
+     */
+    public boolean isFinished() {
+        return myFinished;
+    }
+
+    /**
+     * Returns the last tick of the game, as claimed.
+     * 
+     * @return the tick count.
+     */
+    public long getLastTick() {
+        return myLastTick;
+    }
+
+    /**
+     * Returns the lines cleared, as claimed.
+     * 
+     * @return the line count.
+     */
+    public int getLines() {
+        return myLines;
+    }
+
+    /**
+     * Returns the score, as claimed.
+     * 
+     * @return the score.
+     */
+    public int getScore() {
+        return myScore;
+    }
+
+    /**
+     * Returns the level, as claimed.
+     * 
+     * @return the level.
+     */
+    public int getLevel() {
+        return myLevel;
+    }
+
+    /**
+     * Whether the game ended in a game over, as claimed.
+     * 
+     * @return True if the game was over.
+     */
+    public boolean isGameOver() {
+        return myGameOver;
+    }
+
+    /**
+     * Returns the stateHash of the final board, as claimed.
+     * 
+     * @return the hash.
+     */
+    public long getStateHash() {
+        return myStateHash;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Replay[" + myWidth + 'x' + myHeight + ", " + myRandomizer + ", seed=" + mySeed
+               + ", commands=" + mySize + ", lines=" + myLines + ", level=" + myLevel + ']';
+    }
+
+    /**
+     * Reads the commands and the trailer. Running out of bytes leaves the
+     * replay unfinished, with the commands read whole so far.
+     * 
+     * @param theBuffer the file contents, positioned after the header.
+     * @throws IOException if a command is damaged.
+     */
+    private void readCommands(final ByteBuffer theBuffer) throws IOException {
+        long tick = 0;
+        try {
+            long code = readVarint(theBuffer);
+            while ((code & END) != END) {
+                tick += code >>> COMMAND_BITS;
+                add(tick, (int) (code & END));
+                code = readVarint(theBuffer);
+            }
+            final long lastTick = readVarint(theBuffer);
+            final int lines = (int) readVarint(theBuffer);
+            final int score = (int) readVarint(theBuffer);
+            final int level = (int) readVarint(theBuffer);
+            final boolean gameOver = theBuffer.get() != 0;
+            myStateHash = theBuffer.getLong();
+            myLastTick = lastTick;
+            myLines = lines;
+            myScore = score;
+            myLevel = level;
+            myGameOver = gameOver;
+            myFinished = true;
+        }
+        catch (final BufferUnderflowException e) {
+            myFinished = false;
+        }
+    }
+
+    /**
+     * Adds a command, growing the tables as needed.
+     * 
+     * @param theTick the tick of the command.
+     * @param theCommand the ordinal of the command.
+     */
+    private void add(final long theTick, final int theCommand) {
+        if (mySize == myTicks.length) {
+            myTicks = Arrays.copyOf(myTicks, mySize * 2);
+            myCommands = Arrays.copyOf(myCommands, mySize * 2);
+        }
+        myTicks[mySize] = theTick;
+        myCommands[mySize] = (byte) theCommand;
+        mySize++;
+    }
+
+    /**
+     * Checks a command index.
+     * 
+     * @param theIndex the index.
+     * @return the index.
+     * @throws IndexOutOfBoundsException if there is no such command.
+     */
+    private int checkIndex(final int theIndex) {
+        if (theIndex < 0 || theIndex >= mySize) {
+            throw new IndexOutOfBoundsException("No command " + theIndex + " of " + mySize);
+        }
+        return theIndex;
+    }
+
+    /**
+     * Reads a board dimension.
+     * 
+     * @param theBuffer the buffer.
+     * @param theMax the largest dimension allowed.
+     * @return the dimension.
+     * @throws IOException if the dimension is zero or over theMax.
+     */
+    private static int readSize(final ByteBuffer theBuffer, final int theMax)
+        throws IOException {
+        final long result = readVarint(theBuffer);
+        if (result < 1 || result > theMax) {
+            throw new IOException("Damaged replay: board dimension " + result);
+        }
+        return (int) result;
+    }
+
+    /**
+     * Reads an unsigned varint.
+     * 
+     * @param theBuffer the buffer.
+     * @return the value.
+     * @throws IOException if the varint is longer than a long.
+     * @throws BufferUnderflowException if the buffer ends within the varint.
+     */
+    static long readVarint(final ByteBuffer theBuffer) throws IOException {
+        long result = 0;
+        int shift = 0;
+        byte next;
+        do {
+            if (shift >= LONG_BITS) {
+                throw new IOException("Damaged replay: varint too long");
+            }
+            next = theBuffer.get();
+            result |= (long) (next & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        } while (next < 0);
+        return result;
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Board;
+import model.BoardSnapshot;
+
+/**
+ * Plays a Replay again on a Board, as fast as the board allows or up to any
+ * tick, and checks the results the replay claims.
+ * 
+ * The position of the player is the number of commands applied. As it plays
+ * forward, the player keeps a keyframe, a snapshot of the board with the count
+ * of pieces and lines, every time the number of frozen pieces reaches a
+ * multiple of the keyframe interval. Seeking to a tick restores the last
+ * keyframe at or before it and plays on from there, so a seek applies at most
+ * the commands of one interval of pieces, plus whatever part of the game was
+ * never played yet.
+ * 
+ * Board events are delivered as usual, so a BoardPanel listening to the board
+ * shows the game as it plays; a seek sends it a full refresh. Scoring follows
+ * the windowed game: one point per line, and a new level every five lines.
+ */
+public final class ReplayPlayer {
+
+    /**
+     * Pieces between keyframes by default.
+     */
+    public static final int DEFAULT_KEYFRAME_PIECES = 32;
+
+    /**
+     * The replay.
+     */
+    private final Replay myReplay;
+
+    /**
+     * The board the replay is played on.
+     */
+    private final Board myBoard;
+
+    /**
+     * Pieces between keyframes.
+     */
+    private final int myKeyframePieces;
+
+    /**
+     * Keyframes in the order of their positions, the first at position 0.
+     */
+    private final List<Keyframe> myKeyframes;
+
+    /**
+     * Pieces, lines and score at the current position.
+     */
+    private final GameTally myTally;
+
+    /**
+     * Commands applied.
+     */
+    private int myPosition;
+
+    /**
+     * Creates a player with keyframes every DEFAULT_KEYFRAME_PIECES pieces.
+     * 
+     * @param theReplay the replay.
+     */
+    public ReplayPlayer(final Replay theReplay) {
+        this(theReplay, DEFAULT_KEYFRAME_PIECES);
+    }
+
+    /**
+     * Creates a player at the start of a replay.
+     * 
+     * @param theReplay the replay.
+     * @param theKeyframePieces pieces between keyframes.
+     * @throws IllegalArgumentException if theKeyframePieces is not positive.
+     */
+    public ReplayPlayer(final Replay theReplay, final int theKeyframePieces) {
+        if (theKeyframePieces < 1) {
+            throw new IllegalArgumentException("The keyframe interval must be positive");
+        }
+        myReplay = theReplay;
+        myKeyframePieces = theKeyframePieces;
+        myBoard = theReplay.newBoard();
+        myTally = new GameTally();
+        myTally.listenTo(myBoard.getEvents());
+        myKeyframes = new ArrayList<Keyframe>();
+        myKeyframes.add(new Keyframe());
+    }
+
+    /**
+     * Applies the next command.
+     * 
+     * @return True if a command was applied; false at the end of the replay.
+     */
+    public boolean next() {
+        final boolean result = myPosition < myReplay.size();
+        if (result) {
+            final int pieces = myTally.getPieces();
+            myReplay.getCommand(myPosition).applyTo(myBoard);
+            myPosition++;
+            final int frozen = myTally.getPieces();
+            if (frozen != pieces && frozen % myKeyframePieces == 0
+                && myPosition > myKeyframes.get(myKeyframes.size() - 1).myPosition) {
+                myKeyframes.add(new Keyframe());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Plays forward through every command given at or before a tick. Nothing
+     * happens if the player is already past it.
+     * 
+     * @param theTick the tick.
+     */
+    public void advanceTo(final long theTick) {
+        while (myPosition < myReplay.size() && myReplay.getTick(myPosition) <= theTick) {
+            next();
+        }
+    }
+
+    /**
+     * Moves to the position after every command given at or before a tick,
+     * forward or back.
+     * 
+     * @param theTick the tick.
+     */
+    public void seek(final long theTick) {
+        int low = 0;
+        int high = myKeyframes.size() - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (myKeyframes.get(middle).myTick <= theTick) {
+                low = middle;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        final Keyframe keyframe = myKeyframes.get(low);
+        if (theTick < getTick() || myPosition < keyframe.myPosition) {
+            keyframe.restore();
+        }
+        advanceTo(theTick);
+    }
+
+    /**
+     * Returns to the start of the replay. The board sends its listeners a full
+     * refresh, so a panel that starts listening can be brought up to date.
+     */
+    public void rewind() {
+        myKeyframes.get(0).restore();
+    }
+
+    /**
+     * Plays every remaining command.
+     */
+    public void playToEnd() {
+        while (myPosition < myReplay.size()) {
+            next();
+        }
+    }
+
+    /**
+     * Plays the whole replay from its start and compares the results with
+     * those it claims. The player is left at the end.
+     * 
+     * @return a description of each result that differs, empty if the replay
+     *         is finished and every result matches.
+     */
+    public List<String> verify() {
+        rewind();
+        playToEnd();
+        final List<String> result = new ArrayList<String>();
+        if (!myReplay.isFinished()) {
+            result.add("the replay is unfinished");
+        }
+        else {
+            compare(result, "lines", getLines(), myReplay.getLines());
+            compare(result, "score", getScore(), myReplay.getScore());
+            compare(result, "level", getLevel(), myReplay.getLevel());
+            compare(result, "game over", isGameOver(), myReplay.isGameOver());
+            if (myBoard.stateHash() != myReplay.getStateHash()) {
+                result.add("the final board differs");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the replay.
+     * 
+     * @return the replay.
+     */
+    public Replay getReplay() {
+        return myReplay;
+    }
+
+    /**
+     * Returns the board the replay is played on.
+     * 
+     * @return the board.
+     */
+    public Board getBoard() {
+        return myBoard;
+    }
+
+    /**
+     * Returns the number of commands applied.
+     * 
+     * @return the position.
+     */
+    public int getPosition() {
+        return myPosition;
+    }
+
+    /**
+     * Returns the tick of the last command applied, or 0 at the start.
+     * 
+     * @return the tick.
+     */
+    public long getTick() {
+        long result = 0;
+        if (myPosition > 0) {
+            result = myReplay.getTick(myPosition - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Whether every command has been applied.
+     * 
+     * @return True at the end of the replay.
+     */
+    public boolean isAtEnd() {
+        return myPosition == myReplay.size();
+    }
+
+    /**
+     * Returns the number of keyframes kept so far.
+     * 
+     * @return the keyframe count.
+     */
+    public int getKeyframes() {
+        return myKeyframes.size();
+    }
+
+    /**
+     * Returns the pieces frozen so far.
+     * 
+     * @return the piece count.
+     */
+    public int getPieces() {
+        return myTally.getPieces();
+    }
+
+    /**
+     * Returns the lines cleared so far.
+     * 
+     * @return the line count.
+     */
+    public int getLines() {
+        return myTally.getLines();
+    }
+
+    /**
+     * Returns the score: one point per line cleared.
+     * 
+     * @return the score.
+     */
+    public int getScore() {
+        return myTally.getScore();
+    }
+
+    /**
+     * Returns the level: one level per five lines cleared.
+     * 
+     * @return the level.
+     */
+    public int getLevel() {
+        return myTally.getLevel();
+    }
+
+    /**
+     * Whether the game is over at the current position.
+     * 
+     * @return True if the game is over.
+     */
+    public boolean isGameOver() {
+        return myTally.isGameOver();
+    }
+
+    /**
+     * Adds a description of a result to a list if it differs from the claim.
+     * 
+     * @param theList the list.
+     * @param theName the name of the result.
+     * @param theActual the result of playing the replay.
+     * @param theClaimed the result the replay claims.
+     */
+    private static void compare(final List<String> theList, final String theName,
+                                final Object theActual, final Object theClaimed) {
+        if (!theActual.equals(theClaimed)) {
+            theList.add(theName + " is " + theActual + ", claimed " + theClaimed);
+        }
+    }
+
+    /**
+     * A saved position of the player.
+     */
+    private final class Keyframe {
+
+        /**
+         * Commands applied.
+         */
+        private final int myPosition;
+
+        /**
+         * Tick of the last command applied.
+         */
+        private final long myTick;
+
+        /**
+         * The board.
+         */
+        private final BoardSnapshot mySnapshot;
+
+        /**
+         * Pieces frozen.
+         */
+        private final int myPieces;
+
+        /**
+         * Lines cleared.
+         */
+        private final int myLines;
+
+        /**
+         * Saves the current position of the player.
+         */
+        private Keyframe() {
+            myPosition = ReplayPlayer.this.myPosition;
+            myTick = getTick();
+            mySnapshot = myBoard.snapshot();
+            myPieces = myTally.getPieces();
+            myLines = myTally.getLines();
+        }
+
+        /**
+         * Returns the player to this position. The board sends its listeners
+         * a full refresh and, if it changes, the game status.
+         */
+        private void restore() {
+            ReplayPlayer.this.myPosition = myPosition;
+            myTally.restore(myPieces, myLines);
+            myBoard.restore(mySnapshot);
+        }
+    }
+}
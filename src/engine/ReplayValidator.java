@@ -0,0 +1,257 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Checks a directory of replays by playing each one again and comparing the
+ * results with those it claims: lines, score and level by the rules of the
+ * score and level panels (score += lines, level = score / 5), the game over
+ * status and the final board.
+ * 
+ * Replays are checked at once on a ForkJoinPool with one worker per core by
+ * default, each worker taking the next file when it finishes one, so a few
+ * long games do not hold up the rest. A worker maps its file into memory and
+ * reads the replay straight from the mapping. No keyframes are kept, since
+ * every replay is played once from start to end.
+ * 
+ * Run from the command line with the directory, and optionally the number of
+ * workers, it prints each replay that fails with its problems and a summary,
+ * and exits with status 1 if any replay failed.
+ */
+public final class ReplayValidator {
+
+    /**
+     * Files checked in a directory.
+     */
+    public static final String PATTERN = "*.replay";
+
+    /**
+     * Keyframe interval that keeps no keyframe after the start.
+     */
+    private static final int NO_KEYFRAMES = Integer.MAX_VALUE;
+
+    /**
+     * Number of replays checked at once.
+     */
+    private int myParallelism;
+
+    /**
+     * Creates a validator with one worker per core.
+     */
+    public ReplayValidator() {
+        myParallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets the number of replays checked at once.
+     * 
+     * @param theParallelism the number of workers.
+     * @throws IllegalArgumentException if theParallelism is not positive.
+     */
+    public void setParallelism(final int theParallelism) {
+        if (theParallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive");
+        }
+        myParallelism = theParallelism;
+    }
+
+    /**
+     * Checks every replay in a directory.
+     * 
+     * @param theDirectory the directory.
+     * @return the files in name order, each with its problems.
+     * @throws IOException if the directory cannot be listed.
+     * @throws IllegalStateException if the calling thread is interrupted
+     *             while waiting.
+     */
+    public List<Report> validate(final Path theDirectory) throws IOException {
+        final List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(theDirectory, PATTERN)) {
+            for (final Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return validate(files);
+    }
+
+    /**
+     * Checks a list of replay files.
+     * 
+     * @param theFiles the files.
+     * @return the files in the same order, each with its problems.
+     * @throws IllegalStateException if the calling thread is interrupted
+     *             while waiting.
+     */
+    public List<Report> validate(final List<Path> theFiles) {
+        final Report[] reports = new Report[theFiles.size()];
+        Workers.forEach(reports.length, myParallelism, new IntConsumer() {
+            @Override
+            public void accept(final int theFile) {
+                reports[theFile] = check(theFiles.get(theFile));
+            }
+        });
+        final List<Report> result = new ArrayList<Report>();
+        Collections.addAll(result, reports);
+        return result;
+    }
+
+    /**
+     * Checks one replay file on the calling thread. A file that cannot be
+     * read or played is reported with the reason as its problem.
+     * 
+     * @param theFile the file.
+     * @return the report.
+     */
+    public static Report check(final Path theFile) {
+        final List<String> problems = new ArrayList<String>();
+        int commands = 0;
+        try (FileChannel channel = FileChannel.open(theFile)) {
+            final MappedByteBuffer buffer =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final Replay replay = Replay.read(buffer);
+            commands = replay.size();
+            problems.addAll(new ReplayPlayer(replay, NO_KEYFRAMES).verify());
+        }
+        catch (final IOException e) {
+            problems.add("cannot be read: " + e.getMessage());
+        }
+        catch (final RuntimeException e) {
+            // a file that breaks the player fails alone, not the whole batch
+            problems.add("cannot be played: " + e);
+        }
+        return new Report(theFile, commands, problems);
+    }
+
+    /**
+     * Checks the replays in a directory and prints those that fail.
+     * 
+     * @param theArgs the directory, and optionally the number of workers.
+     * @throws IOException if the directory cannot be listed.
+     */
+    public static void main(final String... theArgs) throws IOException {
+        if (theArgs.length < 1 || theArgs.length > 2) {
+            System.err.println("Usage: ReplayValidator DIRECTORY [WORKERS]");
+            System.exit(2);
+        }
+        final ReplayValidator validator = new ReplayValidator();
+        if (theArgs.length > 1) {
+            validator.setParallelism(Integer.parseInt(theArgs[1]));
+        }
+        final long start = System.nanoTime();
+        final List<Report> reports = validator.validate(Paths.get(theArgs[0]));
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int failed = 0;
+        long commands = 0;
+        for (final Report report : reports) {
+            commands += report.getCommands();
+            if (!report.isValid()) {
+                failed++;
+                System.out.println(report);
+            }
+        }
+        System.out.printf("%d replays, %d commands checked in %d ms: %d failed%n",
+                          reports.size(), commands, millis, failed);
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The outcome of checking one replay file.
+     */
+    public static final class Report {
+
+        /**
+         * The file.
+         */
+        private final Path myFile;
+
+        /**
+         * Commands in the replay, or 0 if it could not be read.
+         */
+        private final int myCommands;
+
+        /**
+         * Descriptions of the problems found.
+         */
+        private final List<String> myProblems;
+
+        /**
+         * Creates a report.
+         * 
+         * @param theFile the file.
+         * @param theCommands commands in the replay.
+         * @param theProblems descriptions of the problems found.
+         */
+        Report(final Path theFile, final int theCommands, final List<String> theProblems) {
+            myFile = theFile;
+            myCommands = theCommands;
+            myProblems = Collections.unmodifiableList(theProblems);
+        }
+
+        /**
+         * Returns the file.
+         * 
+         * @return the file.
+         */
+        public Path getFile() {
+            return myFile;
+        }
+
+        /**
+         * Returns the number of commands in the replay.
+         * 
+         * @return the command count, or 0 if the replay could not be read.
+         */
+        public int getCommands() {
+            return myCommands;
+        }
+
+        /**
+         * Returns the problems found, such as a claimed result that differs
+         * from the one played.
+         * 
+         * @return the descriptions, empty if the replay is valid.
+         */
+        public List<String> getProblems() {
+            return myProblems;
+        }
+
+        /**
+         * Whether the replay is finished and every claimed result matches.
+         * 
+         * @return True if no problem was found.
+         */
+        public boolean isValid() {
+            return myProblems.isEmpty();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            String result = myFile + ": ok";
+            if (!myProblems.isEmpty()) {
+                result = myFile + ": " + String.join("; ", myProblems);
+            }
+            return result;
+        }
+    }
+}
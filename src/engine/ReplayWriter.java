@@ -0,0 +1,224 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import model.Board;
+
+/**
+ * Records a game as a replay file, in the format described by Replay.
+ * 
+ * Commands are encoded into a direct buffer and written to the channel only
+ * when the buffer is nearly full, so recording a command is a few byte puts
+ * and a typical game reaches the channel in one or two writes. Call record for
+ * every command applied to the board, in order, and finish when the game ends;
+ * closing without finishing writes out the commands so far without a trailer.
+ * 
+ * The board must be started as Replay.newBoard starts it: given a new
+ * generator of the recorded kind and seed, then cleared once.
+ */
+public final class ReplayWriter implements Closeable {
+
+    /**
+     * Size of the buffer, in bytes.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Most bytes one varint takes.
+     */
+    private static final int MAX_VARINT = 10;
+
+    /**
+     * Most bytes the end code and trailer take.
+     */
+    private static final int MAX_TRAILER = 6 * MAX_VARINT + 1 + Long.BYTES;
+
+    /**
+     * Varint bytes that continue.
+     */
+    private static final int CONTINUE = 0x80;
+
+    /**
+     * The channel written to.
+     */
+    private final WritableByteChannel myChannel;
+
+    /**
+     * Bytes not written yet.
+     */
+    private final ByteBuffer myBuffer;
+
+    /**
+     * Tick of the last command recorded.
+     */
+    private long myTick;
+
+    /**
+     * True once the channel is closed.
+     */
+    private boolean myClosed;
+
+    /**
+     * Starts a replay on a channel and buffers its header. The writer owns the
+     * channel from now on and closes it.
+     * 
+     * @param theChannel the channel to write to.
+     * @param theWidth width of the board.
+     * @param theHeight height of the board.
+     * @param theRandomizer kind of piece generator.
+     * @param theSeed seed of the piece generator.
+     */
+    public ReplayWriter(final WritableByteChannel theChannel, final int theWidth,
+                        final int theHeight, final Randomizer theRandomizer,
+                        final long theSeed) {
+        myChannel = theChannel;
+        myBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        myBuffer.putInt(Replay.MAGIC).put(Replay.VERSION);
+        putVarint(theWidth);
+        putVarint(theHeight);
+        myBuffer.put((byte) theRandomizer.ordinal()).putLong(theSeed);
+    }
+
+    /**
+     * Creates or replaces a replay file and starts a replay in it.
+     * 
+     * @param theFile the file.
+     * @param theWidth width of the board.
+     * @param theHeight height of the board.
+     * @param theRandomizer kind of piece generator.
+     * @param theSeed seed of the piece generator.
+     * @return the writer.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static ReplayWriter open(final Path theFile, final int theWidth,
+                                    final int theHeight, final Randomizer theRandomizer,
+                                    final long theSeed) throws IOException {
+        return new ReplayWriter(FileChannel.open(theFile, StandardOpenOption.CREATE,
+                                                 StandardOpenOption.TRUNCATE_EXISTING,
+                                                 StandardOpenOption.WRITE),
+                                theWidth, theHeight, theRandomizer, theSeed);
+    }
+
+    /**
+     * Records a command.
+     * 
+     * @param theTick the tick at which the command was applied, no earlier
+     *            than the previous one.
+     * @param theCommand the command.
+     * @throws IOException if the buffer cannot be written out.
+     * @throws IllegalArgumentException if theTick is before the previous tick.
+     * @throws IllegalStateException if the writer is closed.
+     */
+    public void record(final long theTick, final Command theCommand) throws IOException {
+        if (theTick < myTick) {
+            throw new IllegalArgumentException("Tick " + theTick + " is before " + myTick);
+        }
+        ensureOpen();
+        if (myBuffer.remaining() < MAX_VARINT) {
+            flush();
+        }
+        putVarint((theTick - myTick) << Replay.COMMAND_BITS | theCommand.ordinal());
+        myTick = theTick;
+    }
+
+    /**
+     * Ends the commands, writes the trailer with the results the game claims
+     * and closes the channel.
+     * 
+     * @param theTick the last tick of the game.
+     * @param theLines the lines cleared.
+     * @param theScore the score.
+     * @param theLevel the level.
+     * @param theBoard the board the game was played on, for its final state.
+     * @throws IOException if the replay cannot be written out.
+     * @throws IllegalStateException if the writer is closed.
+     */
+    public void finish(final long theTick, final int theLines, final int theScore,
+                       final int theLevel, final Board theBoard) throws IOException {
+        ensureOpen();
+        if (myBuffer.remaining() < MAX_TRAILER) {
+            flush();
+        }
+        putVarint(Replay.END);
+        putVarint(theTick);
+        putVarint(theLines);
+        putVarint(theScore);
+        putVarint(theLevel);
+        byte gameOver = 0;
+        if (theBoard.isGameOver()) {
+            gameOver = 1;
+        }
+        myBuffer.put(gameOver).putLong(theBoard.stateHash());
+        close();
+    }
+
+    /**
+     * Writes out the buffered commands and closes the channel. A replay closed
+     * without finish has no trailer and reads as unfinished. Closing again
+     * does nothing.
+     * 
+     * @throws IOException if the buffer cannot be written out.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!myClosed) {
+            myClosed = true;
+            try {
+                flush();
+            }
+            finally {
+                myChannel.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     * 
+     * @throws IOException if the channel fails.
+     */
+    private void flush() throws IOException {
+        myBuffer.flip();
+        while (myBuffer.hasRemaining()) {
+            myChannel.write(myBuffer);
+        }
+        myBuffer.clear();
+    }
+
+    /**
+     * Checks that the writer is open.
+     * 
+     * @throws IllegalStateException if the writer is closed.
+     */
+    private void ensureOpen() {
+        if (myClosed) {
+            throw new IllegalStateException("The replay is closed");
+        }
+    }
+
+    /**
+     * Buffers an unsigned varint.
+     * 
+     * @param theValue the value, read as unsigned.
+     */
+    private void putVarint(final long theValue) {
+        long value = theValue;
+        while ((value & ~Replay.VARINT_MASK) != 0) {
+            myBuffer.put((byte) (value & Replay.VARINT_MASK | CONTINUE));
+            value >>>= Replay.VARINT_BITS;
+        }
+        myBuffer.put((byte) value);
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntConsumer;
+
+import model.Board;
+
+/**
+ * Runs many independent headless games at once and collects their results.
+ * 
+ * Every game has a board, a piece generator and a player of its own, created
+ * on the thread that plays it, so games share no mutable state and never wait
+ * on each other. The seed of each game is drawn up front from the seed of the
+ * run, so a run gives the same results however its games are scheduled, and
+ * any one game can be played again from its GameResult seed.
+ * 
+ * By default a run uses a ForkJoinPool with one worker per core. Players that
+ * block, such as bots that wait on another process, can be given an executor
+ * with more threads than cores instead.
+ * 
+ * Given a replay directory, every game is also recorded there, in a file named
+ * after the seed of the game, so that a run can be kept as a corpus of
+ * replays.
+ */
+public final class Simulation {
+
+    /**
+     * Standard board width.
+     */
+    public static final int DEFAULT_WIDTH = 10;
+
+    /**
+     * Standard board height.
+     */
+    public static final int DEFAULT_HEIGHT = 20;
+
+    /**
+     * Width of the boards.
+     */
+    private final int myWidth;
+
+    /**
+     * Height of the boards.
+     */
+    private final int myHeight;
+
+    /**
+     * Creates the player of each game.
+     */
+    private final PlayerFactory myPlayers;
+
+    /**
+     * Kind of piece generator for each game.
+     */
+    private Randomizer myRandomizer;
+
+    /**
+     * Most pieces per game before the game is stopped.
+     */
+    private int myPieceLimit;
+
+    /**
+     * Number of games played at once.
+     */
+    private int myParallelism;
+
+    /**
+     * Executor for the games, or null for a pool made for each run.
+     */
+    private ExecutorService myExecutor;
+
+    /**
+     * Directory the games are recorded in, or null.
+     */
+    private Path myReplayDirectory;
+
+    /**
+     * Creates a simulation of games on standard boards.
+     * 
+     * @param thePlayers creates the player of each game.
+     */
+    public Simulation(final PlayerFactory thePlayers) {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT, thePlayers);
+    }
+
+    /**
+     * Creates a simulation. Games are dealt uniformly random pieces and have
+     * no piece limit until set otherwise.
+     * 
+     * @param theWidth width of the boards.
+     * @param theHeight height of the boards.
+     * @param thePlayers creates the player of each game.
+     */
+    public Simulation(final int theWidth, final int theHeight,
+                      final PlayerFactory thePlayers) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myPlayers = thePlayers;
+        myRandomizer = Randomizer.UNIFORM;
+        myPieceLimit = Integer.MAX_VALUE;
+        myParallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets the kind of piece generator each game is dealt from.
+     * 
+     * @param theRandomizer the kind of generator.
+     */
+    public void setRandomizer(final Randomizer theRandomizer) {
+        myRandomizer = theRandomizer;
+    }
+
+    /**
+     * Sets the most pieces a game may freeze before it is stopped, for
+     * players that might never top out.
+     * 
+     * @param theLimit the piece limit.
+     * @throws IllegalArgumentException if theLimit is not positive.
+     */
+    public void setPieceLimit(final int theLimit) {
+        if (theLimit < 1) {
+            throw new IllegalArgumentException("The piece limit must be positive");
+        }
+        myPieceLimit = theLimit;
+    }
+
+    /**
+     * Sets the executor that runs the games and how many games it plays at
+     * once. The executor is not shut down by the simulation.
+     * 
+     * @param theExecutor the executor, or null for a ForkJoinPool made for
+     *            each run.
+     * @param theParallelism the number of games played at once.
+     * @throws IllegalArgumentException if theParallelism is not positive.
+     */
+    public void setExecutor(final ExecutorService theExecutor, final int theParallelism) {
+        if (theParallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive");
+        }
+        myExecutor = theExecutor;
+        myParallelism = theParallelism;
+    }
+
+    /**
+     * Sets the directory every game is recorded in, as seed.replay with the
+     * seed of the game in hexadecimal. Existing files of the same name are
+     * replaced.
+     * 
+     * @param theDirectory an existing directory, or null to record nothing.
+     */
+    public void setReplayDirectory(final Path theDirectory) {
+        myReplayDirectory = theDirectory;
+    }
+
+    /**
+     * Plays a number of games and waits for all of them to end.
+     * 
+     * @param theGames the number of games.
+     * @param theSeed the seed from which the seed of every game is drawn.
+     * @return the results.
+     * @throws IllegalStateException if a game fails or the calling thread is
+     *             interrupted while waiting.
+     */
+    public SimulationResult run(final int theGames, final long theSeed) {
+        final long[] seeds = new long[theGames];
+        final SplittableRandom random = new SplittableRandom(theSeed);
+        for (int i = 0; i < theGames; i++) {
+            seeds[i] = random.nextLong();
+        }
+        final GameResult[] results = new GameResult[theGames];
+        final IntConsumer game = new IntConsumer() {
+            @Override
+            public void accept(final int theGame) {
+                results[theGame] = play(seeds[theGame]);
+            }
+        };
+        final long start = System.nanoTime();
+        if (myExecutor == null) {
+            Workers.forEach(theGames, myParallelism, game);
+        }
+        else {
+            Workers.forEach(theGames, myExecutor, myParallelism, game);
+        }
+        return new SimulationResult(results, System.nanoTime() - start);
+    }
+
+    /**
+     * Plays one game on the calling thread.
+     * 
+     * @param theSeed the seed of the game.
+     * @return the result.
+     * @throws UncheckedIOException if the game cannot be recorded.
+     */
+    public GameResult play(final long theSeed) {
+        final SplittableRandom random = new SplittableRandom(theSeed);
+        final Board board = new Board(myWidth, myHeight);
+        final long generatorSeed = random.nextLong();
+        board.setPieceGenerator(myRandomizer.create(generatorSeed));
+        final HeadlessGame game = new HeadlessGame(board);
+        final Player player = myPlayers.newPlayer(random.nextLong());
+        ReplayWriter recorder = null;
+        try {
+            if (myReplayDirectory != null) {
+                final Path file =
+                    myReplayDirectory.resolve(String.format("%016x.replay", theSeed));
+                recorder = ReplayWriter.open(file, myWidth, myHeight, myRandomizer,
+                                             generatorSeed);
+                game.setRecorder(recorder);
+            }
+            game.newGame();
+            while (!game.isGameOver() && game.getPieces() < myPieceLimit) {
+                player.play(game);
+                game.tick();
+            }
+            if (recorder != null) {
+                recorder.finish(game.getTick(), game.getLines(), game.getScore(),
+                                game.getLevel(), board);
+            }
+        }
+        catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            close(recorder);
+        }
+        return new GameResult(theSeed, game);
+    }
+
+    /**
+     * Closes a replay writer, if there is one.
+     * 
+     * @param theRecorder the writer, or null.
+     * @throws UncheckedIOException if the writer cannot be closed.
+     */
+    private static void close(final ReplayWriter theRecorder) {
+        if (theRecorder != null) {
+            try {
+                theRecorder.close();
+            }
+            catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
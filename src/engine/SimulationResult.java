@@ -0,0 +1,171 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The results of a Simulation run: every game in seed order, with totals and
+ * throughput.
+ */
+public final class SimulationResult {
+
+    /**
+     * The games, in the order of their seeds.
+     */
+    private final List<GameResult> myGames;
+
+    /**
+     * Wall clock time of the run in nanoseconds.
+     */
+    private final long myElapsed;
+
+    /**
+     * Pieces frozen over all games.
+     */
+    private final long myPieces;
+
+    /**
+     * Lines cleared over all games.
+     */
+    private final long myLines;
+
+    /**
+     * Score summed over all games.
+     */
+    private final long myScore;
+
+    /**
+     * Records the results of a run.
+     * 
+     * @param theGames the games, in the order of their seeds.
+     * @param theElapsed wall clock time of the run in nanoseconds.
+     */
+    SimulationResult(final GameResult[] theGames, final long theElapsed) {
+        myGames = Collections.unmodifiableList(Arrays.asList(theGames));
+        myElapsed = theElapsed;
+        final Totals totals = new Totals();
+        for (final GameResult game : theGames) {
+            totals.add(game);
+        }
+        myPieces = totals.myPieces;
+        myLines = totals.myLines;
+        myScore = totals.myScore;
+    }
+
+    /**
+     * Returns the result of every game, in the order of their seeds.
+     * 
+     * @return an unmodifiable list of the games.
+     */
+    public List<GameResult> getGames() {
+        return myGames;
+    }
+
+    /**
+     * Returns the wall clock time of the run.
+     * 
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return myElapsed;
+    }
+
+    /**
+     * Returns the pieces frozen over all games.
+     * 
+     * @return the total piece count.
+     */
+    public long getPieces() {
+        return myPieces;
+    }
+
+    /**
+     * Returns the lines cleared over all games.
+     * 
+     * @return the total line count.
+     */
+    public long getLines() {
+        return myLines;
+    }
+
+    /**
+     * Returns the score summed over all games.
+     * 
+     * @return the total score.
+     */
+    public long getScore() {
+        return myScore;
+    }
+
+    /**
+     * Returns the mean lines cleared per game.
+     * 
+     * @return the mean line count, or zero if no games were played.
+     */
+    public double getMeanLines() {
+        double result = 0;
+        if (!myGames.isEmpty()) {
+            result = (double) myLines / myGames.size();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the throughput of the run: pieces frozen per second of wall
+     * clock time, over all games.
+     * 
+     * @return the pieces per second.
+     */
+    public double getPiecesPerSecond() {
+        return myPieces * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, myElapsed);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("%d games, %d pieces, %d lines in %.3f s (%.0f pieces/s)",
+                             myGames.size(), myPieces, myLines,
+                             myElapsed / (double) TimeUnit.SECONDS.toNanos(1),
+                             getPiecesPerSecond());
+    }
+
+    /**
+     * Running totals over the games, added up in one pass.
+     */
+    private static final class Totals {
+
+        /**
+         * Pieces frozen.
+         */
+        private long myPieces;
+
+        /**
+         * Lines cleared.
+         */
+        private long myLines;
+
+        /**
+         * Score.
+         */
+        private long myScore;
+
+        /**
+         * Adds one game to the totals.
+         * 
+         * @param theGame the game.
+         */
+        private void add(final GameResult theGame) {
+            myPieces += theGame.getPieces();
+            myLines += theGame.getLines();
+            myScore += theGame.getScore();
+        }
+    }
+}
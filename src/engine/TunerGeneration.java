@@ -0,0 +1,213 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import model.Heuristic;
+
+/**
+ * The fitness statistics of one generation of a WeightTuner. Fitness is the
+ * mean number of lines a candidate cleared over the games of the generation.
+ */
+public final class TunerGeneration {
+
+    /**
+     * Number of the generation, counting from zero.
+     */
+    private final int myNumber;
+
+    /**
+     * Fitness of every candidate, best first.
+     */
+    private final double[] myFitness;
+
+    /**
+     * Mean fitness of the elite.
+     */
+    private final double myEliteMean;
+
+    /**
+     * Weights of the fittest candidate.
+     */
+    private final Heuristic myBest;
+
+    /**
+     * Mean of the sampling distribution for the next generation.
+     */
+    private final Heuristic myMean;
+
+    /**
+     * Games played by the generation.
+     */
+    private final long myGames;
+
+    /**
+     * Wall clock time of the generation in nanoseconds.
+     */
+    private final long myElapsed;
+
+    /**
+     * Records a generation.
+     * 
+     * @param theNumber number of the generation.
+     * @param theFitness fitness of every candidate, best first.
+     * @param theElite size of the elite.
+     * @param theBest weights of the fittest candidate.
+     * @param theMean mean of the sampling distribution for the next generation.
+     * @param theGames games played.
+     * @param theElapsed wall clock time in nanoseconds.
+     */
+    TunerGeneration(final int theNumber, final double[] theFitness, final int theElite,
+                    final Heuristic theBest, final Heuristic theMean, final long theGames,
+                    final long theElapsed) {
+        myNumber = theNumber;
+        myFitness = theFitness.clone();
+        myEliteMean = mean(Arrays.copyOf(theFitness, theElite));
+        myBest = theBest;
+        myMean = theMean;
+        myGames = theGames;
+        myElapsed = theElapsed;
+    }
+
+    /**
+     * Returns the number of the generation, counting from zero.
+     * 
+     * @return the generation number.
+     */
+    public int getNumber() {
+        return myNumber;
+    }
+
+    /**
+     * Returns the fitness of the fittest candidate.
+     * 
+     * @return the best fitness.
+     */
+    public double getBestFitness() {
+        return myFitness[0];
+    }
+
+    /**
+     * Returns the fitness of the least fit candidate.
+     * 
+     * @return the worst fitness.
+     */
+    public double getWorstFitness() {
+        return myFitness[myFitness.length - 1];
+    }
+
+    /**
+     * Returns the mean fitness of all candidates.
+     * 
+     * @return the mean fitness.
+     */
+    public double getMeanFitness() {
+        return mean(myFitness);
+    }
+
+    /**
+     * Returns the median fitness of all candidates.
+     * 
+     * @return the median fitness.
+     */
+    public double getMedianFitness() {
+        final int middle = myFitness.length / 2;
+        double result = myFitness[middle];
+        if (myFitness.length % 2 == 0) {
+            result = (myFitness[middle - 1] + myFitness[middle]) / 2;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the standard deviation of the fitness of all candidates.
+     * 
+     * @return the standard deviation.
+     */
+    public double getFitnessDeviation() {
+        final double mean = mean(myFitness);
+        double squares = 0;
+        for (final double fitness : myFitness) {
+            squares += (fitness - mean) * (fitness - mean);
+        }
+        return Math.sqrt(squares / myFitness.length);
+    }
+
+    /**
+     * Returns the mean fitness of the elite, the candidates the next
+     * generation is sampled from.
+     * 
+     * @return the mean fitness of the elite.
+     */
+    public double getEliteMeanFitness() {
+        return myEliteMean;
+    }
+
+    /**
+     * Returns the weights of the fittest candidate.
+     * 
+     * @return the best weights.
+     */
+    public Heuristic getBest() {
+        return myBest;
+    }
+
+    /**
+     * Returns the mean of the distribution the next generation is sampled
+     * from.
+     * 
+     * @return the mean weights.
+     */
+    public Heuristic getMean() {
+        return myMean;
+    }
+
+    /**
+     * Returns the number of games played by the generation.
+     * 
+     * @return the game count.
+     */
+    public long getGames() {
+        return myGames;
+    }
+
+    /**
+     * Returns the wall clock time of the generation.
+     * 
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return myElapsed;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("generation %d: best %.1f, elite %.1f, mean %.1f +- %.1f, "
+                             + "median %.1f, worst %.1f (%d games, %.1f s) %s",
+                             myNumber, getBestFitness(), myEliteMean, getMeanFitness(),
+                             getFitnessDeviation(), getMedianFitness(), getWorstFitness(),
+                             myGames, myElapsed / (double) TimeUnit.SECONDS.toNanos(1),
+                             myBest);
+    }
+
+    /**
+     * Returns the mean of some values.
+     * 
+     * @param theValues the values; there must be at least one.
+     * @return the mean.
+     */
+    private static double mean(final double[] theValues) {
+        double sum = 0;
+        for (final double value : theValues) {
+            sum += value;
+        }
+        return sum / theValues.length;
+    }
+}
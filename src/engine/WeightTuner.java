@@ -0,0 +1,517 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+import model.Heuristic;
+
+/**
+ * Tunes the weights of a Heuristic by the cross-entropy method.
+ * 
+ * Each generation samples a population of weight vectors from a normal
+ * distribution, plays the same seeded games with a BotPlayer for each, and
+ * refits the distribution to the elite, the fittest few. A little extra
+ * variance, shrinking every generation, keeps the distribution from collapsing
+ * before it has found a good region. Fitness is the mean number of lines
+ * cleared.
+ * 
+ * All the games of a generation, for every candidate, are played at once on a
+ * ForkJoinPool, each worker taking the next game when it finishes one, so the
+ * slow games of one candidate do not hold up the others. The state of the
+ * search can be saved after each generation and resumed later; a resumed run
+ * samples the same candidates as one that never stopped.
+ */
+public final class WeightTuner {
+
+    /**
+     * Candidates per generation by default.
+     */
+    public static final int DEFAULT_POPULATION = 50;
+
+    /**
+     * Candidates refitted to by default.
+     */
+    public static final int DEFAULT_ELITE = 10;
+
+    /**
+     * Games per candidate by default.
+     */
+    public static final int DEFAULT_GAMES = 20;
+
+    /**
+     * Most pieces per game by default.
+     */
+    public static final int DEFAULT_PIECE_LIMIT = 500;
+
+    /**
+     * Extra variance added in the first generation by default.
+     */
+    public static final double DEFAULT_NOISE = 0.1;
+
+    /**
+     * Spreads generation numbers apart in the sampling seed.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Checkpoint key of the seed.
+     */
+    private static final String SEED = "seed";
+
+    /**
+     * Checkpoint key of the generation number.
+     */
+    private static final String GENERATION = "generation";
+
+    /**
+     * Checkpoint key of the mean weights.
+     */
+    private static final String MEAN = "mean";
+
+    /**
+     * Checkpoint key of the standard deviations.
+     */
+    private static final String SIGMA = "sigma";
+
+    /**
+     * Checkpoint key of the best weights.
+     */
+    private static final String BEST = "best";
+
+    /**
+     * Checkpoint key of the best fitness.
+     */
+    private static final String BEST_FITNESS = "bestFitness";
+
+    /**
+     * Separates the numbers of a list in a checkpoint.
+     */
+    private static final String SEPARATOR = ",";
+
+    /**
+     * Seed of the sampling and of the games.
+     */
+    private final long mySeed;
+
+    /**
+     * Mean of the sampling distribution.
+     */
+    private double[] myMean;
+
+    /**
+     * Standard deviation of the sampling distribution, per weight.
+     */
+    private double[] mySigma;
+
+    /**
+     * Number of the next generation.
+     */
+    private int myGeneration;
+
+    /**
+     * Fittest weights found so far.
+     */
+    private Heuristic myBest;
+
+    /**
+     * Fitness of myBest.
+     */
+    private double myBestFitness;
+
+    /**
+     * Candidates per generation.
+     */
+    private int myPopulation;
+
+    /**
+     * Candidates refitted to.
+     */
+    private int myElite;
+
+    /**
+     * Games per candidate.
+     */
+    private int myGames;
+
+    /**
+     * Most pieces per game.
+     */
+    private int myPieceLimit;
+
+    /**
+     * Placements the bots look ahead from.
+     */
+    private int myBeam;
+
+    /**
+     * Kind of piece generator for the games.
+     */
+    private Randomizer myRandomizer;
+
+    /**
+     * Extra variance added in the first generation.
+     */
+    private double myNoise;
+
+    /**
+     * Games played at once.
+     */
+    private int myParallelism;
+
+    /**
+     * Creates a tuner that starts from some weights. The bots do not look
+     * ahead, which makes games several times faster while tuning.
+     * 
+     * @param theStart the mean of the first generation.
+     * @param theSigma the standard deviation of every weight in the first
+     *            generation.
+     * @param theSeed seed of the sampling and of the games.
+     */
+    public WeightTuner(final Heuristic theStart, final double theSigma, final long theSeed) {
+        mySeed = theSeed;
+        myMean = theStart.getWeights();
+        mySigma = new double[myMean.length];
+        Arrays.fill(mySigma, theSigma);
+        myBest = theStart;
+        myBestFitness = Double.NEGATIVE_INFINITY;
+        setPopulation(DEFAULT_POPULATION, DEFAULT_ELITE);
+        setGames(DEFAULT_GAMES, DEFAULT_PIECE_LIMIT, 0, Randomizer.SEVEN_BAG);
+        myNoise = DEFAULT_NOISE;
+        myParallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets the size of each generation and of its elite.
+     * 
+     * @param thePopulation candidates per generation.
+     * @param theElite candidates refitted to.
+     * @throws IllegalArgumentException unless 2 <= theElite <= thePopulation.
+     */
+    public void setPopulation(final int thePopulation, final int theElite) {
+        if (theElite < 2 || theElite > thePopulation) {
+            throw new IllegalArgumentException("Need 2 <= elite <= population");
+        }
+        myPopulation = thePopulation;
+        myElite = theElite;
+    }
+
+    /**
+     * Sets the games each candidate plays and how they are played.
+     * 
+     * @param theGames games per candidate.
+     * @param thePieceLimit most pieces per game.
+     * @param theBeam placements the bots look ahead from, or zero.
+     * @param theRandomizer kind of piece generator for the games.
+     * @throws IllegalArgumentException if theGames or thePieceLimit is not
+     *             positive.
+     */
+    public void setGames(final int theGames, final int thePieceLimit, final int theBeam,
+                         final Randomizer theRandomizer) {
+        if (theGames < 1 || thePieceLimit < 1) {
+            throw new IllegalArgumentException("Games and piece limit must be positive");
+        }
+        myGames = theGames;
+        myPieceLimit = thePieceLimit;
+        myBeam = theBeam;
+        myRandomizer = theRandomizer;
+    }
+
+    /**
+     * Sets the extra variance added to every weight; it is divided by one
+     * more than the generation number.
+     * 
+     * @param theNoise the extra variance of the first generation.
+     */
+    public void setNoise(final double theNoise) {
+        myNoise = theNoise;
+    }
+
+    /**
+     * Sets the number of games played at once.
+     * 
+     * @param theParallelism the number of worker threads.
+     * @throws IllegalArgumentException if theParallelism is not positive.
+     */
+    public void setParallelism(final int theParallelism) {
+        if (theParallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive");
+        }
+        myParallelism = theParallelism;
+    }
+
+    /**
+     * Returns the fittest weights found so far.
+     * 
+     * @return the best weights.
+     */
+    public Heuristic getBest() {
+        return myBest;
+    }
+
+    /**
+     * Returns the fitness of the best weights, or negative infinity before
+     * the first generation.
+     * 
+     * @return the best fitness.
+     */
+    public double getBestFitness() {
+        return myBestFitness;
+    }
+
+    /**
+     * Returns the number of the next generation.
+     * 
+     * @return the generation number.
+     */
+    public int getGeneration() {
+        return myGeneration;
+    }
+
+    /**
+     * Runs generations, saving a checkpoint after each.
+     * 
+     * @param theGenerations the number of generations.
+     * @param theCheckpoint file to save the state to, or null.
+     * @return the statistics of each generation.
+     * @throws IOException if a checkpoint cannot be written.
+     */
+    public List<TunerGeneration> run(final int theGenerations, final Path theCheckpoint)
+        throws IOException {
+        final List<TunerGeneration> result = new ArrayList<TunerGeneration>();
+        for (int i = 0; i < theGenerations; i++) {
+            result.add(step());
+            if (theCheckpoint != null) {
+                save(theCheckpoint);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs one generation: samples the candidates, plays their games and
+     * refits the distribution to the elite.
+     * 
+     * @return the statistics of the generation.
+     * @throws IllegalStateException if a game fails or the calling thread is
+     *             interrupted while waiting.
+     */
+    public TunerGeneration step() {
+        final long start = System.nanoTime();
+        final Random random = new Random(mySeed ^ myGeneration * GOLDEN_GAMMA);
+        final Heuristic[] candidates = new Heuristic[myPopulation];
+        for (int i = 0; i < myPopulation; i++) {
+            final double[] weights = new double[myMean.length];
+            for (int w = 0; w < weights.length; w++) {
+                weights[w] = myMean[w] + mySigma[w] * random.nextGaussian();
+            }
+            candidates[i] = new Heuristic(weights);
+        }
+        final double[] fitness = play(candidates, random.nextLong());
+        final Integer[] order = new Integer[myPopulation];
+        for (int i = 0; i < myPopulation; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer theFirst, final Integer theSecond) {
+                return Double.compare(fitness[theSecond], fitness[theFirst]);
+            }
+        });
+        refit(candidates, order);
+        final double[] ranked = new double[myPopulation];
+        for (int i = 0; i < myPopulation; i++) {
+            ranked[i] = fitness[order[i]];
+        }
+        if (ranked[0] > myBestFitness) {
+            myBestFitness = ranked[0];
+            myBest = candidates[order[0]];
+        }
+        final long games = (long) myPopulation * myGames;
+        final TunerGeneration result = new TunerGeneration(
+                        myGeneration, ranked, myElite, candidates[order[0]],
+                        new Heuristic(myMean), games, System.nanoTime() - start);
+        myGeneration++;
+        return result;
+    }
+
+    /**
+     * Saves the state of the search. The file is replaced in one step, so an
+     * interrupted save leaves the previous checkpoint intact.
+     * 
+     * @param theFile the checkpoint file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(final Path theFile) throws IOException {
+        final Properties state = new Properties();
+        state.setProperty(SEED, Long.toString(mySeed));
+        state.setProperty(GENERATION, Integer.toString(myGeneration));
+        state.setProperty(MEAN, join(myMean));
+        state.setProperty(SIGMA, join(mySigma));
+        state.setProperty(BEST, join(myBest.getWeights()));
+        state.setProperty(BEST_FITNESS, Double.toString(myBestFitness));
+        final Path temp = theFile.resolveSibling(theFile.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            state.store(out, "WeightTuner checkpoint");
+        }
+        Files.move(temp, theFile, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Creates a tuner from a checkpoint. Settings such as the population are
+     * not saved and must be set again.
+     * 
+     * @param theFile the checkpoint file.
+     * @return a tuner that continues from the saved generation.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a checkpoint.
+     */
+    public static WeightTuner load(final Path theFile) throws IOException {
+        final Properties state = new Properties();
+        try (Reader in = Files.newBufferedReader(theFile, StandardCharsets.UTF_8)) {
+            state.load(in);
+        }
+        final WeightTuner result;
+        try {
+            final Heuristic mean = new Heuristic(split(property(state, MEAN)));
+            result = new WeightTuner(mean, 0, Long.parseLong(property(state, SEED)));
+            result.mySigma = new Heuristic(split(property(state, SIGMA))).getWeights();
+            result.myGeneration = Integer.parseInt(property(state, GENERATION));
+            result.myBest = new Heuristic(split(property(state, BEST)));
+            result.myBestFitness = Double.parseDouble(property(state, BEST_FITNESS));
+        }
+        catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Not a tuner checkpoint: " + theFile, e);
+        }
+        return result;
+    }
+
+    /**
+     * Plays the games of every candidate and measures their fitness.
+     * 
+     * @param theCandidates the candidates.
+     * @param theSeed seed of the games, the same for every candidate.
+     * @return the mean lines of each candidate.
+     * @throws IllegalStateException if a game fails or the calling thread is
+     *             interrupted while waiting.
+     */
+    private double[] play(final Heuristic[] theCandidates, final long theSeed) {
+        final Simulation[] simulations = new Simulation[theCandidates.length];
+        for (int i = 0; i < theCandidates.length; i++) {
+            simulations[i] = new Simulation(BotPlayer.factory(theCandidates[i], myBeam));
+            simulations[i].setRandomizer(myRandomizer);
+            simulations[i].setPieceLimit(myPieceLimit);
+        }
+        final long[] seeds = new long[myGames];
+        final SplittableRandom random = new SplittableRandom(theSeed);
+        for (int g = 0; g < myGames; g++) {
+            seeds[g] = random.nextLong();
+        }
+        final int total = theCandidates.length * myGames;
+        final int[] lines = new int[total];
+        Workers.forEach(total, myParallelism, new IntConsumer() {
+            @Override
+            public void accept(final int theGame) {
+                lines[theGame] = simulations[theGame / myGames]
+                                 .play(seeds[theGame % myGames]).getLines();
+            }
+        });
+        final double[] result = new double[theCandidates.length];
+        for (int game = 0; game < total; game++) {
+            result[game / myGames] += lines[game] / (double) myGames;
+        }
+        return result;
+    }
+
+    /**
+     * Refits the sampling distribution to the elite of a generation.
+     * 
+     * @param theCandidates the candidates.
+     * @param theOrder indexes of the candidates, fittest first.
+     */
+    private void refit(final Heuristic[] theCandidates, final Integer[] theOrder) {
+        final double[] mean = new double[myMean.length];
+        final double[] squares = new double[myMean.length];
+        for (int e = 0; e < myElite; e++) {
+            final double[] weights = theCandidates[theOrder[e]].getWeights();
+            for (int w = 0; w < mean.length; w++) {
+                mean[w] += weights[w] / myElite;
+                squares[w] += weights[w] * weights[w] / myElite;
+            }
+        }
+        final double noise = myNoise / (myGeneration + 1);
+        for (int w = 0; w < mean.length; w++) {
+            final double variance = Math.max(0, squares[w] - mean[w] * mean[w]);
+            mySigma[w] = Math.sqrt(variance + noise);
+        }
+        myMean = mean;
+    }
+
+    /**
+     * Reads a value that every checkpoint has.
+     * 
+     * @param theState the checkpoint.
+     * @param theKey the key of the value.
+     * @return the value.
+     * @throws IllegalArgumentException if the value is missing.
+     */
+    private static String property(final Properties theState, final String theKey) {
+        final String result = theState.getProperty(theKey);
+        if (result == null) {
+            throw new IllegalArgumentException("Checkpoint has no " + theKey);
+        }
+        return result;
+    }
+
+    /**
+     * Writes numbers as a list for a checkpoint.
+     * 
+     * @param theValues the numbers.
+     * @return the list.
+     */
+    private static String join(final double[] theValues) {
+        final StringBuilder result = new StringBuilder();
+        for (final double value : theValues) {
+            if (result.length() > 0) {
+                result.append(SEPARATOR);
+            }
+            result.append(value);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Reads a list of numbers from a checkpoint.
+     * 
+     * @param theList the list.
+     * @return the numbers.
+     * @throws NumberFormatException if an entry is not a number.
+     */
+    private static double[] split(final String theList) {
+        final String[] parts = theList.split(SEPARATOR);
+        final double[] result = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Double.parseDouble(parts[i].trim());
+        }
+        return result;
+    }
+}
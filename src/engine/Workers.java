@@ -0,0 +1,95 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the numbered tasks of a batch, such as games or replay checks, on a
+ * number of workers at once.
+ * 
+ * Each worker takes the next task that has not been started when it finishes
+ * one, so a few long tasks do not hold up the rest, and the call returns once
+ * every task has run.
+ */
+final class Workers {
+
+    /**
+     * Constructor.
+     */
+    private Workers() {
+    }
+
+    /**
+     * Runs tasks 0 to theCount - 1 on a ForkJoinPool made for the call.
+     * 
+     * @param theCount the number of tasks.
+     * @param theParallelism the number of tasks run at once.
+     * @param theTask runs the task with the number it is given.
+     * @throws IllegalStateException if a task fails or the calling thread is
+     *             interrupted while waiting.
+     */
+    static void forEach(final int theCount, final int theParallelism,
+                        final IntConsumer theTask) {
+        final ExecutorService pool = new ForkJoinPool(theParallelism);
+        try {
+            forEach(theCount, pool, theParallelism, theTask);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs tasks 0 to theCount - 1 on an executor, which is not shut down.
+     * 
+     * @param theCount the number of tasks.
+     * @param theExecutor the executor.
+     * @param theParallelism the number of tasks run at once.
+     * @param theTask runs the task with the number it is given.
+     * @throws IllegalStateException if a task fails or the calling thread is
+     *             interrupted while waiting.
+     */
+    static void forEach(final int theCount, final ExecutorService theExecutor,
+                        final int theParallelism, final IntConsumer theTask) {
+        final AtomicInteger next = new AtomicInteger();
+        final List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < Math.min(theParallelism, theCount); i++) {
+            workers.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    int task = next.getAndIncrement();
+                    while (task < theCount) {
+                        theTask.accept(task);
+                        task = next.getAndIncrement();
+                    }
+                    return null;
+                }
+            });
+        }
+        try {
+            for (final Future<Void> worker : theExecutor.invokeAll(workers)) {
+                worker.get();
+            }
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the tasks", e);
+        }
+        catch (final ExecutionException e) {
+            throw new IllegalStateException("A task failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The event counters of the game, summed over every board. Each is a
+ * LongAdder, so counting from many threads never blocks. Nothing is counted
+ * when metrics are turned off.
+ */
+public enum Counter {
+
+    /**
+     * Calls of Board.step.
+     */
+    STEPS,
+
+    /**
+     * Moves of the current piece tried, by the player or by gravity.
+     */
+    MOVES_ATTEMPTED,
+
+    /**
+     * Moves of the current piece that were legal and made.
+     */
+    MOVES_ACCEPTED,
+
+    /**
+     * Pieces frozen into place.
+     */
+    LOCKS,
+
+    /**
+     * Lines cleared.
+     */
+    LINES_CLEARED,
+
+    /**
+     * Events handed to a listener.
+     */
+    NOTIFICATIONS,
+
+    /**
+     * Copies of the full grid made by BoardData.getBoardData.
+     */
+    BOARD_DATA_COPIES;
+
+    /**
+     * The running total.
+     */
+    private final LongAdder myTotal = new LongAdder();
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+        if (Metrics.ENABLED) {
+            myTotal.increment();
+        }
+    }
+
+    /**
+     * Counts a number of events.
+     * 
+     * @param theEvents the number of events.
+     */
+    public void add(final long theEvents) {
+        if (Metrics.ENABLED) {
+            myTotal.add(theEvents);
+        }
+    }
+
+    /**
+     * Returns the events counted since the start or the last reset.
+     * 
+     * @return the total.
+     */
+    public long sum() {
+        return myTotal.sum();
+    }
+
+    /**
+     * Sets the total back to zero.
+     */
+    public void reset() {
+        myTotal.reset();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Traces the latency from a key press to the paint that shows it.
+ * 
+ * The window stamps each key press with stamp, runs the board command and
+ * passes the board versions before and after it to submitted. A command that
+ * changed nothing is dropped. The board panel passes the version of the last
+ * BoardData it applied to painted when it finishes painting, which closes
+ * every submitted command up to that version, and the time since each stamp
+ * is recorded in Latency.INPUT_TO_PAINT. The stamp is moved back by the time
+ * the key event waited in the event queue, so a busy event thread shows up in
+ * the latency, as the player feels it.
+ * 
+ * A trace belongs to one window and is used on the Swing event thread only.
+ * Pending commands are kept in a fixed ring; beyond its size the oldest are
+ * dropped.
+ */
+public final class InputTrace {
+
+    /**
+     * Most commands waiting for a paint.
+     */
+    private static final int CAPACITY = 64;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * Nanoseconds per millisecond, for display.
+     */
+    private static final double MILLIS = 1e6;
+
+    /**
+     * The median.
+     */
+    private static final double P50 = 50;
+
+    /**
+     * The 99th percentile.
+     */
+    private static final double P99 = 99;
+
+    /**
+     * Board version after each pending command.
+     */
+    private final int[] myVersions;
+
+    /**
+     * Stamp of each pending command.
+     */
+    private final long[] myStamps;
+
+    /**
+     * Index of the oldest pending command.
+     */
+    private int myHead;
+
+    /**
+     * Number of pending commands.
+     */
+    private int mySize;
+
+    /**
+     * True if the board panel shows the overlay.
+     */
+    private boolean myOverlayShown;
+
+    /**
+     * Creates a trace with nothing pending.
+     */
+    public InputTrace() {
+        myVersions = new int[CAPACITY];
+        myStamps = new long[CAPACITY];
+    }
+
+    /**
+     * Stamps an input event as it is handled.
+     * 
+     * @param theEventMillis the time of the event, as InputEvent.getWhen
+     *            gives it.
+     * @return the stamp to pass to submitted.
+     */
+    public long stamp(final long theEventMillis) {
+        final long queued = Math.max(0, System.currentTimeMillis() - theEventMillis);
+        return System.nanoTime() - queued * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Records a board command made for an input event, to be closed by the
+     * paint that shows it.
+     * 
+     * @param theStamp the stamp of the event.
+     * @param theBefore the board version before the command.
+     * @param theAfter the board version after the command.
+     */
+    public void submitted(final long theStamp, final int theBefore, final int theAfter) {
+        if (theAfter != theBefore) {
+            if (mySize == CAPACITY) {
+                myHead = (myHead + 1) % CAPACITY;
+                mySize--;
+            }
+            final int tail = (myHead + mySize) % CAPACITY;
+            myVersions[tail] = theAfter;
+            myStamps[tail] = theStamp;
+            mySize++;
+        }
+    }
+
+    /**
+     * Closes every command whose effect a finished paint showed.
+     * 
+     * @param theVersion the board version the paint showed.
+     */
+    public void painted(final int theVersion) {
+        final long now = System.nanoTime();
+        while (mySize > 0 && theVersion - myVersions[myHead] >= 0) {
+            Latency.INPUT_TO_PAINT.histogram().record(now - myStamps[myHead]);
+            myHead = (myHead + 1) % CAPACITY;
+            mySize--;
+        }
+    }
+
+    /**
+     * Drops the pending commands, as when a new board replaces the old one.
+     */
+    public void clear() {
+        mySize = 0;
+    }
+
+    /**
+     * Whether the board panel shows the latency overlay.
+     * 
+     * @return True if the overlay is shown.
+     */
+    public boolean isOverlayShown() {
+        return myOverlayShown;
+    }
+
+    /**
+     * Shows or hides the latency overlay on the board panel.
+     * 
+     * @param theShown true to show the overlay.
+     */
+    public void setOverlayShown(final boolean theShown) {
+        myOverlayShown = theShown;
+    }
+
+    /**
+     * Returns the text of the overlay.
+     * 
+     * @return the median and 99th percentile latency and the count.
+     */
+    public String overlayText() {
+        final LatencyHistogram histogram = Latency.INPUT_TO_PAINT.histogram();
+        return String.format(Locale.ROOT, "input p50 %.1f ms  p99 %.1f ms  n=%d",
+                             histogram.percentile(P50) / MILLIS,
+                             histogram.percentile(P99) / MILLIS, histogram.count());
+    }
+
+    /**
+     * Writes the input latency to a file: a summary, then the non-empty
+     * buckets of the histogram.
+     * 
+     * @param theFile the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void dump(final Path theFile) throws IOException {
+        final LatencyHistogram histogram = Latency.INPUT_TO_PAINT.histogram();
+        try (PrintWriter out =
+            new PrintWriter(Files.newBufferedWriter(theFile, StandardCharsets.UTF_8))) {
+            out.println("# input to paint latency, " + new Date());
+            out.println("# " + LatencySummary.of(histogram));
+            out.println("# bucket upper bound (ns)\tcount");
+            histogram.writeTo(out);
+        }
+    }
+}
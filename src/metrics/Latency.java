@@ -0,0 +1,147 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+/**
+ * The timed operations of the game, each with its own LatencyHistogram. Time
+ * an operation with
+ * 
+ * <pre>
+ * final long start = Latency.BOARD_STEP.start();
+ * ...
+ * Latency.BOARD_STEP.stop(start);
+ * </pre>
+ * 
+ * When metrics are turned off neither call reads the clock. Operations that
+ * run on every step of every board are sampled instead, with sample in place
+ * of start, so that timing them does not slow them down.
+ */
+public enum Latency {
+
+    /**
+     * Board.step, including the events it delivers immediately. Sampled.
+     */
+    BOARD_STEP("Board.step"),
+
+    /**
+     * Delivery of one event to its listeners. Sampled.
+     */
+    DISPATCH("dispatch"),
+
+    /**
+     * The timer callback of the game window.
+     */
+    TIMER_TICK("TetrisGUI.tick"),
+
+    /**
+     * From a key press to the end of the first paint of the board panel that
+     * shows its effect, including the time the key event waited in the event
+     * queue. Recorded by InputTrace.
+     */
+    INPUT_TO_PAINT("input to paint"),
+
+    /**
+     * BoardPanel.paintComponent.
+     */
+    BOARD_PAINT("BoardPanel.paint"),
+
+    /**
+     * PreviewBoxPanel.paintComponent.
+     */
+    PREVIEW_PAINT("PreviewBoxPanel.paint"),
+
+    /**
+     * ScorePanel.paintComponent.
+     */
+    SCORE_PAINT("ScorePanel.paint"),
+
+    /**
+     * LevelPanel.paintComponent.
+     */
+    LEVEL_PAINT("LevelPanel.paint");
+
+    /**
+     * A sampled operation is timed once in this many calls.
+     */
+    public static final int SAMPLE_INTERVAL = 64;
+
+    /**
+     * Name shown in JMX and in the log.
+     */
+    private final String myName;
+
+    /**
+     * The durations recorded.
+     */
+    private final LatencyHistogram myHistogram;
+
+    /**
+     * Creates a timed operation.
+     * 
+     * @param theName name shown in JMX and in the log.
+     */
+    Latency(final String theName) {
+        myName = theName;
+        myHistogram = new LatencyHistogram();
+    }
+
+    /**
+     * Starts timing the operation.
+     * 
+     * @return the start time to pass to stop, or zero if metrics are off.
+     */
+    public long start() {
+        long result = 0;
+        if (Metrics.ENABLED) {
+            result = System.nanoTime();
+        }
+        return result;
+    }
+
+    /**
+     * Starts timing the operation if this call is one of the samples, that is
+     * once in SAMPLE_INTERVAL calls.
+     * 
+     * @param theCall a count the caller advances once per call.
+     * @return the start time to pass to stop, or zero if this call is not
+     *         timed.
+     */
+    public long sample(final int theCall) {
+        long result = 0;
+        if (Metrics.ENABLED && (theCall & (SAMPLE_INTERVAL - 1)) == 0) {
+            result = System.nanoTime();
+        }
+        return result;
+    }
+
+    /**
+     * Stops timing the operation and records its duration, unless it was not
+     * timed.
+     * 
+     * @param theStart the time returned by start or sample.
+     */
+    public void stop(final long theStart) {
+        if (Metrics.ENABLED && theStart != 0) {
+            myHistogram.record(System.nanoTime() - theStart);
+        }
+    }
+
+    /**
+     * Returns the durations recorded.
+     * 
+     * @return the histogram.
+     */
+    public LatencyHistogram histogram() {
+        return myHistogram;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return myName;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds.
+ * 
+ * Durations are counted in buckets that grow with the duration: every power
+ * of two is split into sixteen buckets, so a percentile is reported within
+ * about 6% of the true value over the whole range of a long.
+ * 
+ * The buckets are striped: there is one set per power of two up to the
+ * number of cores, and a thread records into the set its id picks, so
+ * threads on different cores rarely write the same cache line. Recording is
+ * an atomic increment of one bucket of that set plus a LongAdder update, never
+ * blocks, and does not allocate. Reading merges the sets without stopping
+ * writers; a value recorded during a read may or may not be counted in it.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Bits of a duration below its highest bit that choose the bucket.
+     */
+    private static final int SUB_BITS = 4;
+
+    /**
+     * Buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Number of buckets, enough for any non-negative long.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * Number of stripes: the number of cores rounded up to a power of two.
+     */
+    private static final int STRIPES =
+        Integer.highestOneBit(2 * Runtime.getRuntime().availableProcessors() - 1);
+
+    /**
+     * The stripes, chosen by thread id.
+     */
+    private final Stripe[] myStripes;
+
+    /**
+     * Sum of the durations recorded.
+     */
+    private final LongAdder myTotal;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        myStripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            myStripes[i] = new Stripe();
+        }
+        myTotal = new LongAdder();
+    }
+
+    /**
+     * Records a duration. Negative durations, which a clock adjustment could
+     * give, are recorded as zero.
+     * 
+     * @param theNanos the duration in nanoseconds.
+     */
+    public void record(final long theNanos) {
+        final long nanos = Math.max(0, theNanos);
+        final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        myStripes[stripe].record(nanos);
+        myTotal.add(nanos);
+    }
+
+    /**
+     * Returns the number of durations recorded.
+     * 
+     * @return the count.
+     */
+    public long count() {
+        long result = 0;
+        for (final long count : counts()) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the mean of the durations recorded.
+     * 
+     * @return the mean in nanoseconds, or zero if none were recorded.
+     */
+    public double mean() {
+        final long count = count();
+        double result = 0;
+        if (count > 0) {
+            result = myTotal.sum() / (double) count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the longest duration recorded.
+     * 
+     * @return the maximum in nanoseconds.
+     */
+    public long max() {
+        long result = 0;
+        for (final Stripe stripe : myStripes) {
+            result = Math.max(result, stripe.myMax.get());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a percentile of the durations recorded: the upper end of the
+     * bucket that holds it, but no more than the maximum.
+     * 
+     * @param thePercentile the percentile, from 0 to 100.
+     * @return the duration in nanoseconds, or zero if none were recorded.
+     */
+    public long percentile(final double thePercentile) {
+        final long[] counts = counts();
+        long total = 0;
+        for (final long count : counts) {
+            total += count;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * thePercentile / 100));
+        long result = 0;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS && seen < rank && total > 0; i++) {
+            seen += counts[i];
+            result = upperBound(i);
+        }
+        return Math.min(result, max());
+    }
+
+    /**
+     * Writes the non-empty buckets, one per line: the largest duration in the
+     * bucket in nanoseconds, a tab and the count.
+     * 
+     * @param theOut where to write.
+     */
+    public void writeTo(final PrintWriter theOut) {
+        final long[] counts = counts();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                theOut.println(upperBound(i) + "\t" + counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Empties the histogram. Durations recorded while it empties may be
+     * partly kept.
+     */
+    public void reset() {
+        for (final Stripe stripe : myStripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                stripe.myBuckets.set(i, 0);
+            }
+            stripe.myMax.set(0);
+        }
+        myTotal.reset();
+    }
+
+    /**
+     * Merges the counts of the stripes.
+     * 
+     * @return the count of durations in each bucket.
+     */
+    private long[] counts() {
+        final long[] result = new long[BUCKETS];
+        for (final Stripe stripe : myStripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                result[i] += stripe.myBuckets.get(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bucket of a duration.
+     * 
+     * @param theNanos a non-negative duration.
+     * @return the bucket index.
+     */
+    static int bucket(final long theNanos) {
+        int result = (int) theNanos;
+        if (theNanos >= SUB_BUCKETS) {
+            final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(theNanos);
+            final int sub = (int) (theNanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            result = (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the largest duration that falls in a bucket.
+     * 
+     * @param theBucket the bucket index.
+     * @return the duration in nanoseconds.
+     */
+    static long upperBound(final int theBucket) {
+        long result = theBucket;
+        if (theBucket >= SUB_BUCKETS) {
+            final int shift = theBucket / SUB_BUCKETS - 1;
+            final long low = (long) (SUB_BUCKETS + theBucket % SUB_BUCKETS) << shift;
+            result = low + (1L << shift) - 1;
+        }
+        return result;
+    }
+
+    /**
+     * The buckets and the maximum recorded by the threads of one stripe.
+     */
+    private static final class Stripe {
+
+        /**
+         * Count of durations in each bucket.
+         */
+        private final AtomicLongArray myBuckets = new AtomicLongArray(BUCKETS);
+
+        /**
+         * Longest duration recorded.
+         */
+        private final AtomicLong myMax = new AtomicLong();
+
+        /**
+         * Records a duration.
+         * 
+         * @param theNanos a non-negative duration.
+         */
+        private void record(final long theNanos) {
+            myBuckets.incrementAndGet(bucket(theNanos));
+            long max = myMax.get();
+            while (theNanos > max && !myMax.compareAndSet(max, theNanos)) {
+                max = myMax.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The percentiles of a LatencyHistogram at one moment, in microseconds, as
+ * JMX shows them.
+ */
+public final class LatencySummary {
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1000;
+
+    /**
+     * The median.
+     */
+    private static final double P50 = 50;
+
+    /**
+     * The 99th percentile.
+     */
+    private static final double P99 = 99;
+
+    /**
+     * The 99.9th percentile.
+     */
+    private static final double P999 = 99.9;
+
+    /**
+     * Number of durations recorded.
+     */
+    private final long myCount;
+
+    /**
+     * Mean duration.
+     */
+    private final double myMean;
+
+    /**
+     * Median duration.
+     */
+    private final double myP50;
+
+    /**
+     * 99th percentile duration.
+     */
+    private final double myP99;
+
+    /**
+     * 99.9th percentile duration.
+     */
+    private final double myP999;
+
+    /**
+     * Longest duration.
+     */
+    private final double myMax;
+
+    /**
+     * Creates a summary from its values, as JMX rebuilds one.
+     * 
+     * @param theCount number of durations recorded.
+     * @param theMean mean duration in microseconds.
+     * @param theP50 median duration in microseconds.
+     * @param theP99 99th percentile duration in microseconds.
+     * @param theP999 99.9th percentile duration in microseconds.
+     * @param theMax longest duration in microseconds.
+     */
+    @ConstructorProperties({"count", "mean", "p50", "p99", "p999", "max"})
+    public LatencySummary(final long theCount, final double theMean, final double theP50,
+                          final double theP99, final double theP999, final double theMax) {
+        myCount = theCount;
+        myMean = theMean;
+        myP50 = theP50;
+        myP99 = theP99;
+        myP999 = theP999;
+        myMax = theMax;
+    }
+
+    /**
+     * Summarizes a histogram.
+     * 
+     * @param theHistogram the histogram.
+     * @return the summary.
+     */
+    public static LatencySummary of(final LatencyHistogram theHistogram) {
+        return new LatencySummary(theHistogram.count(),
+                                  theHistogram.mean() / NANOS_PER_MICRO,
+                                  theHistogram.percentile(P50) / NANOS_PER_MICRO,
+                                  theHistogram.percentile(P99) / NANOS_PER_MICRO,
+                                  theHistogram.percentile(P999) / NANOS_PER_MICRO,
+                                  theHistogram.max() / NANOS_PER_MICRO);
+    }
+
+    /**
+     * Returns the number of durations recorded.
+     * 
+     * @return the count.
+     */
+    public long getCount() {
+        return myCount;
+    }
+
+    /**
+     * Returns the mean duration.
+     * 
+     * @return the mean in microseconds.
+     */
+    public double getMean() {
+        return myMean;
+    }
+
+    /**
+     * Returns the median duration.
+     * 
+     * @return the median in microseconds.
+     */
+    public double getP50() {
+        return myP50;
+    }
+
+    /**
+     * Returns the 99th percentile duration.
+     * 
+     * @return the percentile in microseconds.
+     */
+    public double getP99() {
+        return myP99;
+    }
+
+    /**
+     * Returns the 99.9th percentile duration.
+     * 
+     * @return the percentile in microseconds.
+     */
+    public double getP999() {
+        return myP999;
+    }
+
+    /**
+     * Returns the longest duration.
+     * 
+     * @return the maximum in microseconds.
+     */
+    public double getMax() {
+        return myMax;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1f p50=%.1f p99=%.1f p99.9=%.1f max=%.1f us",
+                             myCount, myMean, myP50, myP99, myP999, myMax);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for the complete rows a piece made, timed over
+ * finding and removing them. Only locks that clear a row are recorded.
+ * Switch it off in a recording with tetris.LinesCleared#enabled=false.
+ */
+@Name("tetris.LinesCleared")
+@Label("Lines Cleared")
+@Category("Tetris")
+@Description("Complete rows found and removed after a lock")
+@StackTrace(false)
+public final class LinesClearedEvent extends Event {
+
+    /**
+     * The piece that completed the rows.
+     */
+    @Name("piece")
+    @Label("Piece")
+    private String myPiece;
+
+    /**
+     * Rows removed.
+     */
+    @Name("rowsCleared")
+    @Label("Rows Cleared")
+    private int myRowsCleared;
+
+    /**
+     * Filled cells on the board after the rows were removed.
+     */
+    @Name("boardFill")
+    @Label("Board Fill")
+    @Description("Filled cells on the board after the clear")
+    private int myBoardFill;
+
+    /**
+     * Sets the fields of the event before it is committed.
+     * 
+     * @param thePiece the piece that completed the rows.
+     * @param theRowsCleared rows removed.
+     * @param theBoardFill filled cells after the clear.
+     */
+    public void set(final String thePiece, final int theRowsCleared, final int theBoardFill) {
+        myPiece = thePiece;
+        myRowsCleared = theRowsCleared;
+        myBoardFill = theBoardFill;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a piece freezing into place, timed over the
+ * freeze and the line clears it makes. Switch it off in a recording with
+ * tetris.Lock#enabled=false.
+ */
+@Name("tetris.Lock")
+@Label("Piece Lock")
+@Category("Tetris")
+@Description("A piece freezing into place and the rows it clears")
+@StackTrace(false)
+public final class LockEvent extends Event {
+
+    /**
+     * The piece that froze.
+     */
+    @Name("piece")
+    @Label("Piece")
+    private String myPiece;
+
+    /**
+     * Rows the piece completed.
+     */
+    @Name("rowsCleared")
+    @Label("Rows Cleared")
+    private int myRowsCleared;
+
+    /**
+     * Filled cells on the board after the lines were cleared.
+     */
+    @Name("boardFill")
+    @Label("Board Fill")
+    @Description("Filled cells on the board after the lock")
+    private int myBoardFill;
+
+    /**
+     * True if the piece did not fit and the game ended.
+     */
+    @Name("gameOver")
+    @Label("Game Over")
+    private boolean myGameOver;
+
+    /**
+     * Sets the fields of the event before it is committed.
+     * 
+     * @param thePiece the piece that froze.
+     * @param theRowsCleared rows the piece completed.
+     * @param theBoardFill filled cells after the lock.
+     * @param theGameOver true if the game ended.
+     */
+    public void set(final String thePiece, final int theRowsCleared, final int theBoardFill,
+                    final boolean theGameOver) {
+        myPiece = thePiece;
+        myRowsCleared = theRowsCleared;
+        myBoardFill = theBoardFill;
+        myGameOver = theGameOver;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of the game loop and the panels: the Counter and Latency values,
+ * published through JMX and optionally written to the log at a fixed rate.
+ * 
+ * Metrics are on unless the system property tetris.metrics is false. The
+ * property is read once, so with metrics off the JIT removes the recording
+ * calls entirely. With metrics on, a timed operation costs two clock reads and
+ * a few uncontended atomic adds, and the board counts moves and steps in plain
+ * fields that it adds to the shared counters once per piece.
+ * 
+ * The same operations are also Flight Recorder events: StepEvent, LockEvent,
+ * LinesClearedEvent and PaintEvent, in the Tetris category. They do not depend
+ * on tetris.metrics; a recording turns them on and off by name in its
+ * settings, and with no recording running they cost nothing measurable.
+ */
+public final class Metrics implements MetricsMXBean {
+
+    /**
+     * True if metrics are recorded.
+     */
+    public static final boolean ENABLED =
+        !"false".equalsIgnoreCase(System.getProperty("tetris.metrics"));
+
+    /**
+     * Name of the MBean.
+     */
+    public static final String NAME = "tetris:type=Metrics";
+
+    /**
+     * Logger the reporter writes to.
+     */
+    private static final Logger LOG = Logger.getLogger("tetris.metrics");
+
+    /**
+     * Counter totals at the previous report, for the rates in the log.
+     */
+    private final Map<Counter, Long> myReported;
+
+    /**
+     * Creates the MBean.
+     */
+    private Metrics() {
+        myReported = new EnumMap<Counter, Long>(Counter.class);
+    }
+
+    /**
+     * Publishes the metrics through the platform MBean server, once; later
+     * calls do nothing.
+     * 
+     * @throws JMException if the MBean cannot be registered.
+     */
+    public static synchronized void register() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new Metrics(), name);
+        }
+    }
+
+    /**
+     * Starts writing the metrics to the log at a fixed rate, from a daemon
+     * thread: each counter with its rate since the previous report, and each
+     * timed operation that has been recorded.
+     * 
+     * @param thePeriod time between reports.
+     * @param theUnit unit of thePeriod.
+     * @return the scheduled reports, which can be cancelled.
+     */
+    public static ScheduledFuture<?> startReporter(final long thePeriod,
+                                                   final TimeUnit theUnit) {
+        final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable theTask) {
+                    final Thread thread = new Thread(theTask, "metrics-reporter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        final Metrics metrics = new Metrics();
+        final double seconds = theUnit.toNanos(thePeriod)
+                               / (double) TimeUnit.SECONDS.toNanos(1);
+        return executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                LOG.info(metrics.report(seconds));
+            }
+        }, thePeriod, thePeriod, theUnit);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSteps() {
+        return Counter.STEPS.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMovesAttempted() {
+        return Counter.MOVES_ATTEMPTED.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMovesAccepted() {
+        return Counter.MOVES_ACCEPTED.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getLocks() {
+        return Counter.LOCKS.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getLinesCleared() {
+        return Counter.LINES_CLEARED.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getNotifications() {
+        return Counter.NOTIFICATIONS.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getBoardDataCopies() {
+        return Counter.BOARD_DATA_COPIES.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, LatencySummary> getLatencies() {
+        final Map<String, LatencySummary> result = new TreeMap<String, LatencySummary>();
+        for (final Latency latency : Latency.values()) {
+            result.put(latency.toString(), LatencySummary.of(latency.histogram()));
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        for (final Counter counter : Counter.values()) {
+            counter.reset();
+        }
+        for (final Latency latency : Latency.values()) {
+            latency.histogram().reset();
+        }
+    }
+
+    /**
+     * Builds one report for the log.
+     * 
+     * @param theSeconds seconds since the previous report.
+     * @return the report.
+     */
+    private String report(final double theSeconds) {
+        final StringBuilder sb = new StringBuilder("game metrics");
+        for (final Counter counter : Counter.values()) {
+            final long total = counter.sum();
+            Long before = myReported.put(counter, total);
+            if (before == null) {
+                before = 0L;
+            }
+            sb.append(String.format("%n  %-18s %12d %10.1f/s", counter, total,
+                                    (total - before) / theSeconds));
+        }
+        for (final Latency latency : Latency.values()) {
+            if (latency.histogram().count() > 0) {
+                sb.append(String.format("%n  %-22s %s", latency,
+                                        LatencySummary.of(latency.histogram())));
+            }
+        }
+        return sb.toString();
+    }
+}
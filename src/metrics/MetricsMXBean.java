@@ -0,0 +1,78 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import java.util.Map;
+
+/**
+ * The game metrics as JMX shows them, under the name tetris:type=Metrics.
+ * Counters are totals since the start or the last reset; latencies are in
+ * microseconds.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Returns the calls of Board.step.
+     * 
+     * @return the count.
+     */
+    long getSteps();
+
+    /**
+     * Returns the moves of the current piece tried.
+     * 
+     * @return the count.
+     */
+    long getMovesAttempted();
+
+    /**
+     * Returns the moves of the current piece made.
+     * 
+     * @return the count.
+     */
+    long getMovesAccepted();
+
+    /**
+     * Returns the pieces frozen into place.
+     * 
+     * @return the count.
+     */
+    long getLocks();
+
+    /**
+     * Returns the lines cleared.
+     * 
+     * @return the count.
+     */
+    long getLinesCleared();
+
+    /**
+     * Returns the events handed to listeners.
+     * 
+     * @return the count.
+     */
+    long getNotifications();
+
+    /**
+     * Returns the full grid copies made for listeners.
+     * 
+     * @return the count.
+     */
+    long getBoardDataCopies();
+
+    /**
+     * Returns a summary of every timed operation.
+     * 
+     * @return the summaries by operation name.
+     */
+    Map<String, LatencySummary> getLatencies();
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,61 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one paintComponent of a game panel. Switch it
+ * off in a recording with tetris.Paint#enabled=false, or keep only slow paints
+ * with tetris.Paint#threshold.
+ */
+@Name("tetris.Paint")
+@Label("Panel Paint")
+@Category("Tetris")
+@Description("One paintComponent of a game panel")
+@StackTrace(false)
+public final class PaintEvent extends Event {
+
+    /**
+     * Class name of the panel.
+     */
+    @Name("panel")
+    @Label("Panel")
+    private String myPanel;
+
+    /**
+     * Width of the panel in pixels.
+     */
+    @Name("width")
+    @Label("Width")
+    private int myWidth;
+
+    /**
+     * Height of the panel in pixels.
+     */
+    @Name("height")
+    @Label("Height")
+    private int myHeight;
+
+    /**
+     * Sets the fields of the event before it is committed.
+     * 
+     * @param thePanel class name of the panel.
+     * @param theWidth width of the panel.
+     * @param theHeight height of the panel.
+     */
+    public void set(final String thePanel, final int theWidth, final int theHeight) {
+        myPanel = thePanel;
+        myWidth = theWidth;
+        myHeight = theHeight;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import java.awt.Component;
+
+/**
+ * Times the paints of a game panel, both into the Latency of the panel and as
+ * a PaintEvent for Flight Recorder. A panel keeps one timer and uses it as
+ * 
+ * <pre>
+ * final PaintEvent event = myPaintTimer.start();
+ * ...
+ * myPaintTimer.finish(event, this);
+ * </pre>
+ * 
+ * The event is handed back rather than kept in the timer so that it stays a
+ * local of paintComponent, which the JIT can drop when no recording wants it.
+ * A timer times one paint at a time, so it is used only on the thread that
+ * paints the panel.
+ */
+public final class PaintTimer {
+
+    /**
+     * The latency paints are recorded in.
+     */
+    private final Latency myLatency;
+
+    /**
+     * Start time of the current paint, from Latency.start.
+     */
+    private long myStart;
+
+    /**
+     * Creates a timer for the paints of a panel.
+     * 
+     * @param theLatency the latency to record the paints in.
+     */
+    public PaintTimer(final Latency theLatency) {
+        myLatency = theLatency;
+    }
+
+    /**
+     * Starts timing a paint.
+     * 
+     * @return the event of the paint, begun, to pass to finish.
+     */
+    public PaintEvent start() {
+        final PaintEvent result = new PaintEvent();
+        result.begin();
+        myStart = myLatency.start();
+        return result;
+    }
+
+    /**
+     * Records the paint in the latency and commits its event if the
+     * recording wants it.
+     * 
+     * @param theEvent the event returned by start.
+     * @param thePanel the panel that painted.
+     */
+    public void finish(final PaintEvent theEvent, final Component thePanel) {
+        myLatency.stop(myStart);
+        if (theEvent.shouldCommit()) {
+            theEvent.set(thePanel.getClass().getSimpleName(), thePanel.getWidth(),
+                         thePanel.getHeight());
+            theEvent.commit();
+        }
+    }
+}
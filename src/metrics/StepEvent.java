@@ -0,0 +1,62 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one call of Board.step, with the time it took.
+ * Switch it off in a recording with tetris.Step#enabled=false, or keep only
+ * slow steps with tetris.Step#threshold.
+ */
+@Name("tetris.Step")
+@Label("Board Step")
+@Category("Tetris")
+@Description("One step of gravity on a board")
+@StackTrace(false)
+public final class StepEvent extends Event {
+
+    /**
+     * The piece falling when the step started.
+     */
+    @Name("piece")
+    @Label("Piece")
+    private String myPiece;
+
+    /**
+     * Filled cells on the board after the step.
+     */
+    @Name("boardFill")
+    @Label("Board Fill")
+    @Description("Filled cells on the board after the step")
+    private int myBoardFill;
+
+    /**
+     * True if the step froze the piece.
+     */
+    @Name("locked")
+    @Label("Locked")
+    private boolean myLocked;
+
+    /**
+     * Sets the fields of the event before it is committed.
+     * 
+     * @param thePiece the piece falling when the step started.
+     * @param theBoardFill filled cells after the step.
+     * @param theLocked true if the step froze the piece.
+     */
+    public void set(final String thePiece, final int theBoardFill, final boolean theLocked) {
+        myPiece = thePiece;
+        myBoardFill = theBoardFill;
+        myLocked = theLocked;
+    }
+}
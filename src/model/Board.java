@@ -6,22 +6,34 @@
 
 package model;
 
-import java.awt.Color;
-import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.Observable;
+import java.util.SplittableRandom;
+
+import metrics.Counter;
+import metrics.Latency;
+import metrics.LinesClearedEvent;
+import metrics.LockEvent;
+import metrics.StepEvent;
 
 /**
- * Represents a Tetris board.
+ * Represents a Tetris board. Changes to the board are sent to the listeners
+ * registered with its BoardEvents.
  * 
  * @author Alan Fowler
  * @version Spring 2014
  */
-public class Board extends Observable {
+public class Board {
 
     // Class constants
 
+    /**
+     * Widest board allowed, one column per bit of a row word.
+     */
+    public static final int MAX_WIDTH = BoardGrid.MAX_WIDTH;
+
     /**
      * Default width of a Tetris game board.
      */
@@ -32,6 +44,17 @@ public class Board extends Observable {
      */
     private static final int DEFAULT_HEIGHT = 20;
 
+    /**
+     * Number of empty rows above the board in the board data given to
+     * listeners, so that a piece entering the board is visible.
+     */
+    static final int SPARE_ROWS = 4;
+
+    /**
+     * Most rows that a single piece can complete at once.
+     */
+    private static final int MAX_CLEARED_ROWS = 4;
+
     // Instance fields
 
     /**
@@ -47,22 +70,22 @@ public class Board extends Observable {
     /**
      * The frozen blocks on the board.
      */
-    private final List<Color[]> myFrozenBlocks;
+    private final BoardGrid myGrid;
 
     /**
-     * Current board status. This is used to track game over status.
+     * Delivers the events of this board to its listeners.
      */
-    private final GameStatus myGameStatus;
+    private final BoardEvents myEvents;
 
     /**
-     * Contains a non random sequence of TetrisPieces to loop through.
+     * Current board status. This is used to track game over status.
      */
-    private List<TetrisPiece> myNonRandomPieces;
+    private final GameStatus myGameStatus;
 
     /**
-     * Index for non random pieces.
+     * Chooses the pieces played on this board.
      */
-    private int myNonRandomIndex;
+    private PieceGenerator myGenerator;
 
     /**
      * Piece that is next to play.
@@ -74,6 +97,77 @@ public class Board extends Observable {
      */
     private MovableTetrisPiece myCurrentPiece;
 
+    /**
+     * Packed state of the piece drawn in the last BoardData sent to listeners.
+     */
+    private int myPublishedState;
+
+    /**
+     * True once a BoardData has been sent to listeners.
+     */
+    private boolean myPublished;
+
+    /**
+     * Count of changes to the frozen blocks or the current piece. A BoardData
+     * can build its full grid only while this still matches its own version.
+     */
+    private int myVersion;
+
+    /**
+     * Rows removed by the last line clear, lowest first.
+     */
+    private final int[] myClearedRows;
+
+    /**
+     * Number of rows removed by the last line clear.
+     */
+    private int myClearedCount;
+
+    /**
+     * Steps since the last piece froze, not yet added to the metrics.
+     */
+    private int mySteps;
+
+    /**
+     * Steps taken by this board, to choose the ones that are timed.
+     */
+    private int myStepCount;
+
+    /**
+     * Moves tried since the last piece froze, not yet added to the metrics.
+     */
+    private int myMovesAttempted;
+
+    /**
+     * Moves made since the last piece froze, not yet added to the metrics.
+     */
+    private int myMovesAccepted;
+
+    /**
+     * Positions to return to with undo, most recent last.
+     */
+    private final Deque<BoardSnapshot> myUndo;
+
+    /**
+     * Positions to return to with redo, most recent last.
+     */
+    private final Deque<BoardSnapshot> myRedo;
+
+    /**
+     * Most positions kept for undo; zero turns undo off.
+     */
+    private int myUndoLimit;
+
+    /**
+     * Packed landing state of the current piece, valid for myGhostVersion.
+     */
+    private int myGhostState;
+
+    /**
+     * Version of the board for which myGhostState was computed.
+     */
+    private int myGhostVersion;
+
     // Constructors
 
     /**
@@ -89,19 +183,20 @@ public class Board extends Observable {
      * 
      * @param theWidth Width of the Tetris game board.
      * @param theHeight Height of the Tetris game board.
+     * @throws IllegalArgumentException if theWidth is wider than MAX_WIDTH.
      */
     public Board(final int theWidth, final int theHeight) {
-        super();
+        myGrid = new BoardGrid(theWidth, theHeight);
         myWidth = theWidth;
         myHeight = theHeight;
-        myFrozenBlocks = new LinkedList<Color[]>();
-        for (int h = 0; h < myHeight; h++) {
-            myFrozenBlocks.add(new Color[myWidth]);
-        }
+        myClearedRows = new int[MAX_CLEARED_ROWS];
+        myUndo = new ArrayDeque<BoardSnapshot>();
+        myRedo = new ArrayDeque<BoardSnapshot>();
+        myGhostVersion = -1;
+        myEvents = new BoardEvents();
         myGameStatus = new GameStatus();
 
-        myNonRandomPieces = new ArrayList<TetrisPiece>();
-        myNonRandomIndex = 0;
+        myGenerator = new UniformGenerator(new SplittableRandom().nextLong());
 
         /*
          * myNextPiece and myCurrentPiece are initialized by the clear() method.
@@ -128,6 +223,148 @@ public class Board extends Observable {
         return myHeight;
     }
 
+    /**
+     * Get the events of this board, to register listeners with.
+     * 
+     * @return The event bus of this board.
+     */
+    public BoardEvents getEvents() {
+        return myEvents;
+    }
+
+    /**
+     * Get the count of changes to the board. Every command that changes the
+     * board raises it, and each BoardData carries the version it describes,
+     * so a listener can tell whether it has caught up with a command.
+     * 
+     * @return The current version of the board.
+     */
+    public int getVersion() {
+        return myVersion;
+    }
+
+    /**
+     * Get the packed state of the current piece. See MovableTetrisPiece.pack
+     * for the encoding. The board must have been cleared at least once.
+     * 
+     * @return Packed state of the current piece.
+     */
+    public int getPieceState() {
+        return myCurrentPiece.getPackedState();
+    }
+
+    /**
+     * Tests whether a packed piece state is legal on this board, that is, inside
+     * the board bounds and clear of every frozen block. The top of the board is
+     * open. This query does not allocate.
+     * 
+     * @param theState Packed piece state to test.
+     * @return True if the piece state is legal; false otherwise.
+     */
+    public boolean isLegal(final int theState) {
+        return myGrid.isLegal(theState);
+    }
+
+    /**
+     * Get the packed state where the current piece would land if dropped, for
+     * drawing a ghost piece. The result is cached until the board changes, so
+     * this can be called every frame; it does not allocate.
+     * 
+     * @return Packed state of the landing position of the current piece.
+     */
+    public int getGhostState() {
+        if (myGhostVersion != myVersion) {
+            final int state = myCurrentPiece.getPackedState();
+            myGhostState = MovableTetrisPiece.packedDown(state, myGrid.dropDistance(state));
+            myGhostVersion = myVersion;
+        }
+        return myGhostState;
+    }
+
+    /**
+     * Get the current piece at the position where it would land if dropped. The
+     * piece comes from the shared MovableTetrisPiece cache, so repeated calls
+     * normally return the same instance without allocating.
+     * 
+     * @return The current piece at its landing position.
+     */
+    public MovableTetrisPiece getGhostPiece() {
+        return MovableTetrisPiece.valueOf(getGhostState());
+    }
+
+    /**
+     * Get the surface features of the frozen blocks: column heights, contour,
+     * holes and transitions. The view is read-only and live, following every
+     * later change to this board, so it can be kept and read repeatedly.
+     * 
+     * @return The surface features of this board.
+     */
+    public BoardFeatures getFeatures() {
+        return myGrid.features();
+    }
+
+    /**
+     * Get a 64 bit Zobrist hash of the position: which cells are filled and
+     * the state of the current piece. Equal positions have equal hashes on
+     * every board, so the hash can key a table of positions shared between
+     * searches. The part for the filled cells is kept up to date as pieces
+     * freeze and lines clear, so this is constant time and does not allocate.
+     * 
+     * @return The hash of the position.
+     */
+    public long stateHash() {
+        return myGrid.hash() ^ Zobrist.piece(myCurrentPiece.getPackedState());
+    }
+
+    /**
+     * Whether the game on this board is over.
+     * 
+     * @return True if a piece froze partly above the board.
+     */
+    public boolean isGameOver() {
+        return myGameStatus.isGameOver();
+    }
+
+    /**
+     * Get the piece that plays after the current one, as shown in the preview.
+     * 
+     * @return The next piece, or null if the board was never cleared.
+     */
+    public TetrisPiece getNextPiece() {
+        return myNextPiece;
+    }
+
+    /**
+     * Whether there is a position to return to with undo.
+     * 
+     * @return True if undo would change the board.
+     */
+    public boolean canUndo() {
+        return !myUndo.isEmpty();
+    }
+
+    /**
+     * Whether there is a position to return to with redo.
+     * 
+     * @return True if redo would change the board.
+     */
+    public boolean canRedo() {
+        return !myRedo.isEmpty();
+    }
+
+    /**
+     * Saves the current position of the board. A snapshot shares the frozen
+     * rows with the board, and a row is copied only when the board next writes
+     * to it, so taking a snapshot does not depend on the size of the board.
+     * 
+     * @return A snapshot of the current position.
+     */
+    public BoardSnapshot snapshot() {
+        return new BoardSnapshot(myGrid.snapshot(), myCurrentPiece, myNextPiece,
+                                 myGenerator.copy(),
+                                 myGameStatus.isGameOver(), myVersion);
+    }
+
     // public commands
 
     /**
@@ -135,29 +372,133 @@ public class Board extends Observable {
      * first game and before each new game.
      */
     public void clear() {
-        myNonRandomIndex = 0;
-        myFrozenBlocks.clear();
-        for (int h = 0; h < myHeight; h++) {
-            myFrozenBlocks.add(new Color[myWidth]);
-        }
+        myGenerator.reset();
+        myVersion++;
+        myPublished = false;
+        myUndo.clear();
+        myRedo.clear();
+        myGrid.clear();
         myCurrentPiece = nextMovablePiece(true);
         myGameStatus.reset();
 
-        setChanged();
-        notifyObservers(new BoardData());
+        publish(0);
     }
 
     /**
-     * Sets a non random sequence of pieces to loop through.
+     * Sets a non random sequence of pieces to loop through. An empty list
+     * goes back to pieces chosen at random.
      * 
      * @param thePieces List of non random TetrisPieces.
      */
     public void setNonRandomPieces(final List<TetrisPiece> thePieces) {
-        myNonRandomPieces = new ArrayList<TetrisPiece>(thePieces);
-        myNonRandomIndex = 0;
+        if (thePieces.isEmpty()) {
+            setPieceGenerator(new UniformGenerator(new SplittableRandom().nextLong()));
+        }
+        else {
+            setPieceGenerator(new SequenceGenerator(thePieces));
+        }
+    }
+
+    /**
+     * Sets the generator that chooses the pieces played on this board, and
+     * replaces the current and next pieces with its first two. The board owns
+     * the generator from now on; give each board its own.
+     * 
+     * @param theGenerator the piece generator, such as a seeded
+     *            SevenBagGenerator for a game that can be played again.
+     */
+    public void setPieceGenerator(final PieceGenerator theGenerator) {
+        myGenerator = theGenerator;
+        myVersion++;
         myCurrentPiece = nextMovablePiece(true);
     }
 
+    /**
+     * Returns the generator that chooses the pieces played on this board.
+     * 
+     * @return the piece generator.
+     */
+    public PieceGenerator getPieceGenerator() {
+        return myGenerator;
+    }
+
+    /**
+     * Returns the board to a saved position and sends listeners a full
+     * refresh. Undo and redo history is kept.
+     * 
+     * @param theSnapshot Snapshot taken from a board of the same size.
+     * @throws IllegalArgumentException if the snapshot is from a board of a
+     *             different size.
+     */
+    public void restore(final BoardSnapshot theSnapshot) {
+        if (theSnapshot.getGrid().width() != myWidth
+            || theSnapshot.getGrid().height() != myHeight) {
+            throw new IllegalArgumentException("Snapshot is from a board of another size");
+        }
+        myVersion++;
+        myGrid.restore(theSnapshot.getGrid());
+        myCurrentPiece = theSnapshot.getPiece();
+        myNextPiece = theSnapshot.getNext();
+        myGenerator = theSnapshot.getGenerator().copy();
+        if (theSnapshot.isGameOver() != myGameStatus.isGameOver()) {
+            if (theSnapshot.isGameOver()) {
+                myGameStatus.setGameOver();
+            }
+            else {
+                myGameStatus.reset();
+            }
+        }
+        if (myNextPiece != null) {
+            myEvents.nextPiece(myNextPiece);
+        }
+        myPublished = false;
+        if (myCurrentPiece != null) {
+            publish(0);
+        }
+    }
+
+    /**
+     * Sets how many positions are kept for undo. Every board command that
+     * changes the board then saves the position before it; the oldest positions
+     * are dropped beyond the limit. Zero, the default, turns undo off.
+     * 
+     * @param theLimit Most positions to keep.
+     */
+    public void setUndoLimit(final int theLimit) {
+        myUndoLimit = Math.max(0, theLimit);
+        while (myUndo.size() > myUndoLimit) {
+            myUndo.removeFirst();
+        }
+    }
+
+    /**
+     * Returns to the position before the last board command.
+     * 
+     * @return True if there was a position to return to.
+     */
+    public boolean undo() {
+        final boolean result = canUndo();
+        if (result) {
+            myRedo.addLast(snapshot());
+            restore(myUndo.removeLast());
+        }
+        return result;
+    }
+
+    /**
+     * Repeats the last board command undone.
+     * 
+     * @return True if there was a position to return to.
+     */
+    public boolean redo() {
+        final boolean result = canRedo();
+        if (result) {
+            myUndo.addLast(snapshot());
+            restore(myRedo.removeLast());
+        }
+        return result;
+    }
+
     /**
      * Advances the board by one 'step'.
      * 
@@ -170,7 +511,18 @@ public class Board extends Observable {
          * the board by one 'step'. However, more code could be added to this
          * method to implement additional functionality
          */
-        down();
+        final StepEvent event = new StepEvent();
+        event.begin();
+        myStepCount++;
+        final long start = Latency.BOARD_STEP.sample(myStepCount);
+        final TetrisPiece piece = myCurrentPiece.getTetrisPiece();
+        mySteps++;
+        final boolean locked = lowerRecorded();
+        Latency.BOARD_STEP.stop(start);
+        if (event.shouldCommit()) {
+            event.set(piece.name(), getFeatures().blocks(), locked);
+            event.commit();
+        }
     }
 
     /**
@@ -178,13 +530,7 @@ public class Board extends Observable {
      * tries to move into an illegal state.
      */
     public void down() {
-        if (!move(myCurrentPiece.down())) {
-            addPieceToBoardData(myFrozenBlocks, myCurrentPiece);
-            checkRows();
-            myCurrentPiece = nextMovablePiece(false);
-            setChanged();
-            notifyObservers(new BoardData());
-        }
+        lowerRecorded();
     }
 
     /**
@@ -192,7 +538,9 @@ public class Board extends Observable {
      */
     public void left() {
         if (myCurrentPiece != null) {
-            move(myCurrentPiece.left());
+            final BoardSnapshot before = checkpoint();
+            move(MovableTetrisPiece.packedLeft(myCurrentPiece.getPackedState()));
+            record(before);
         }
     }
 
@@ -201,7 +549,9 @@ public class Board extends Observable {
      */
     public void right() {
         if (myCurrentPiece != null) {
-            move(myCurrentPiece.right());
+            final BoardSnapshot before = checkpoint();
+            move(MovableTetrisPiece.packedRight(myCurrentPiece.getPackedState()));
+            record(before);
         }
     }
 
@@ -210,7 +560,9 @@ public class Board extends Observable {
      */
     public void rotateCW() {
         if (myCurrentPiece != null) {
-            move(myCurrentPiece.rotateCW());
+            final BoardSnapshot before = checkpoint();
+            move(MovableTetrisPiece.packedRotateCW(myCurrentPiece.getPackedState()));
+            record(before);
         }
     }
 
@@ -219,22 +571,52 @@ public class Board extends Observable {
      */
     public void rotateCCW() {
         if (myCurrentPiece != null) {
-            move(myCurrentPiece.rotateCCW());
+            final BoardSnapshot before = checkpoint();
+            move(MovableTetrisPiece.packedRotateCCW(myCurrentPiece.getPackedState()));
+            record(before);
         }
     }
 
     /**
-     * Drop the piece. Loops Step until piece is set.
+     * Drop the piece. The landing row is computed from the frozen blocks, the
+     * piece moves there in one step with a single notification, and then it is
+     * set.
      */
     public void drop() {
         if (!myGameStatus.isGameOver()) {
-            while (isPieceLegal(myCurrentPiece.down())) {
-                down();
+            final BoardSnapshot before = checkpoint();
+            final int landing = getGhostState();
+            if (landing != myCurrentPiece.getPackedState()) {
+                move(landing);
             }
-            down();
+            lower();
+            record(before);
         }
     }
 
+    /**
+     * Get the frozen blocks, for building the full grid of a BoardData or
+     * searching for placements.
+     * 
+     * @return The grid of this board.
+     */
+    BoardGrid getGrid() {
+        return myGrid;
+    }
+
+    /**
+     * Get the packed state in which a piece enters the board: unrotated,
+     * centered and just above the top row.
+     * 
+     * @param thePiece The piece.
+     * @return Packed state of the piece as it enters.
+     */
+    int spawnState(final TetrisPiece thePiece) {
+        return MovableTetrisPiece.pack(thePiece, Rotation.NONE,
+                                       (int) ((myWidth / 2) - (thePiece.width() / 2.0)),
+                                       myHeight);
+    }
+
     // Overridden method of class Object
 
     /**
@@ -244,20 +626,15 @@ public class Board extends Observable {
      */
     @Override
     public String toString() {
-        final List<Color[]> board = getBoard();
-        board.add(new Color[myWidth]);
-        board.add(new Color[myWidth]);
-        board.add(new Color[myWidth]);
-        board.add(new Color[myWidth]);
-        if (myCurrentPiece != null) {
-            addPieceToBoardData(board, myCurrentPiece);
-        }
         final StringBuilder sb = new StringBuilder();
-        for (int i = board.size() - 1; i >= 0; i--) {
-            final Color[] row = board.get(i);
+        for (int y = myHeight + SPARE_ROWS - 1; y >= 0; y--) {
+            long row = pieceRow(y);
+            if (y < myHeight) {
+                row |= myGrid.row(y);
+            }
             sb.append('|');
-            for (final Color c : row) {
-                if (c == null) {
+            for (int x = 0; x < myWidth; x++) {
+                if ((row & (1L << x)) == 0) {
                     sb.append(' ');
                 }
                 else {
@@ -265,7 +642,7 @@ public class Board extends Observable {
                 }
             }
             sb.append("|\n");
-            if (i == this.myHeight) {
+            if (y == this.myHeight) {
                 sb.append(' ');
                 for (int j = 0; j < this.myWidth; j++) {
                     sb.append('-');
@@ -284,165 +661,174 @@ public class Board extends Observable {
     // private helper methods
 
     /**
-     * Helper function to check if the current piece can be shifted to the
-     * specified position.
+     * Lowers the piece as lower does, keeping the position before it for undo.
      * 
-     * @param theMovedPiece the position to attempt to shift the current piece
-     * @return True if the move succeeded
+     * @return True if the piece froze.
      */
-    private boolean move(final MovableTetrisPiece theMovedPiece) {
-        boolean result = false;
-        if (isPieceLegal(theMovedPiece)) {
-            myCurrentPiece = theMovedPiece;
-            result = true;
-            setChanged();
-            notifyObservers(new BoardData());
-        }
+    private boolean lowerRecorded() {
+        final BoardSnapshot before = checkpoint();
+        final boolean result = lower();
+        record(before);
         return result;
     }
 
     /**
-     * Helper function to test if the piece is in a legal state.
-     * 
-     * Illegal states: - points of the piece exceed the bounds of the board -
-     * points of the piece collide with frozen blocks on the board
+     * Try to move the movable piece down. Freeze the Piece in position if down
+     * tries to move into an illegal state.
      * 
-     * @param thePiece MovableTetrisPiece to test.
-     * @return Returns true if the piece is in a legal state; false otherwise
-     */
-    private boolean isPieceLegal(final MovableTetrisPiece thePiece) {
-        boolean result = true;
-
-        for (final Point p : thePiece.getBoardPoints()) {
-            if (p.x() < 0 || p.x() >= myWidth) {
-                result = false;
+     * @return True if the piece froze.
+     */
+    private boolean lower() {
+        final boolean result =
+            !move(MovableTetrisPiece.packedDown(myCurrentPiece.getPackedState()));
+        if (result) {
+            final LockEvent event = new LockEvent();
+            event.begin();
+            myVersion++;
+            countLock();
+            if (!myGrid.freeze(myCurrentPiece.getPackedState())
+                && !myGameStatus.isGameOver()) {
+                myGameStatus.setGameOver();
             }
-            if (p.y() < 0) { // || p.y() > myHeight) {
-                result = false;
+            checkRows(myCurrentPiece.getPackedState());
+            if (event.shouldCommit()) {
+                event.set(myCurrentPiece.getTetrisPiece().name(), myClearedCount,
+                          getFeatures().blocks(), myGameStatus.isGameOver());
+                event.commit();
             }
+            myCurrentPiece = nextMovablePiece(false);
+            publish(myHeight);
         }
-        return result && !collision(thePiece);
+        return result;
     }
 
     /**
-     * Adds a movable tetris piece into a list of board color data.
-     * 
-     * Allows a single data structure to represent the current piece and the
-     * frozen blocks.
-     * 
-     * @param theFrozenBlocks Board to set the piece on.
-     * @param thePiece Piece to set on the board.
+     * Adds a lock to the metrics, with the steps and moves counted on this
+     * board since the previous one. Counting in plain fields and adding them
+     * once per piece keeps moves from touching the shared counters.
      */
-    private void addPieceToBoardData(final List<Color[]> theFrozenBlocks,
-                                     final MovableTetrisPiece thePiece) {
-        for (final Point p : thePiece.getBoardPoints()) {
-            setPoint(theFrozenBlocks, p, thePiece.getTetrisPiece().color());
-        }
+    private void countLock() {
+        Counter.LOCKS.increment();
+        Counter.STEPS.add(mySteps);
+        Counter.MOVES_ATTEMPTED.add(myMovesAttempted);
+        Counter.MOVES_ACCEPTED.add(myMovesAccepted);
+        mySteps = 0;
+        myMovesAttempted = 0;
+        myMovesAccepted = 0;
     }
 
     /**
-     * Checks the board for complete rows.
+     * Saves the position before a board command if undo is on.
+     * 
+     * @return The saved position, or null if undo is off.
      */
-    private void checkRows() {
-        final List<Integer> completeRows = new ArrayList<Integer>();
-        for (final Color[] row : myFrozenBlocks) {
-            boolean complete = true;
-            for (final Color c : row) {
-                if (c == null) {
-                    complete = false;
-                    break;
-                }
-            }
-            if (complete) {
-                completeRows.add(myFrozenBlocks.indexOf(row));
-            }
-        }
-        // loop through list backwards removing items by index
-        if (!completeRows.isEmpty()) {
-            for (int i = completeRows.size() - 1; i >= 0; i--) {
-                final Color[] row = myFrozenBlocks.get(completeRows.get(i));
-                myFrozenBlocks.remove(row);
-                myFrozenBlocks.add(new Color[myWidth]);
-            }
-            setChanged();
-            notifyObservers(new CompletedLines(completeRows.size()));
+    private BoardSnapshot checkpoint() {
+        BoardSnapshot result = null;
+        if (myUndoLimit > 0) {
+            result = snapshot();
         }
+        return result;
     }
 
     /**
-     * Helper function to copy the board.
+     * Keeps the position saved before a board command for undo if the command
+     * changed the board.
      * 
-     * @return A new copy of the board.
-     */
-    private List<Color[]> getBoard() {
-        final List<Color[]> board = new ArrayList<Color[]>();
-        for (final Color[] row : myFrozenBlocks) {
-            board.add(row.clone());
+     * @param theBefore The position saved by checkpoint, or null.
+     */
+    private void record(final BoardSnapshot theBefore) {
+        if (theBefore != null && theBefore.getVersion() != myVersion) {
+            myRedo.clear();
+            myUndo.addLast(theBefore);
+            if (myUndo.size() > myUndoLimit) {
+                myUndo.removeFirst();
+            }
         }
-        return board;
     }
 
     /**
-     * Determines if a point is on the game board.
+     * Helper function to check if the current piece can be shifted to the
+     * specified position.
      * 
-     * @param theBoard Board to test.
-     * @param thePoint Point to test.
-     * @return True if the point is on the board otherwise false.
+     * @param theMovedState the packed state to attempt to shift the current
+     *            piece to
+     * @return True if the move succeeded
      */
-    private boolean isPointOnBoard(final List<Color[]> theBoard, final Point thePoint) {
-        return thePoint.x() >= 0 && thePoint.x() < myWidth && thePoint.y() >= 0
-               && thePoint.y() < theBoard.size();
+    private boolean move(final int theMovedState) {
+        boolean result = false;
+        myMovesAttempted++;
+        if (isLegal(theMovedState)) {
+            myMovesAccepted++;
+            myVersion++;
+            myCurrentPiece = MovableTetrisPiece.valueOf(theMovedState);
+            result = true;
+            publish(0);
+        }
+        return result;
     }
 
     /**
-     * Sets a block as color at a board point.
+     * Sends a BoardData describing the change from the last published state to
+     * the listeners. Nothing is built when no listener would receive it.
      * 
-     * @param theBoard Board to set the point on.
-     * @param thePoint Board point.
-     * @param theColor Color to set at board point.
-     */
-    private void setPoint(final List<Color[]> theBoard, final Point thePoint,
-                          final Color theColor) {
-
-        if (isPointOnBoard(theBoard, thePoint)) {
-            final Color[] row = theBoard.get(thePoint.y());
-            row[thePoint.x()] = theColor;
-        }
-        else if (!myGameStatus.isGameOver()) {
-            myGameStatus.setGameOver();
+     * @param theEraseFrom lowest row from which the cells of the previously
+     *            published piece must be erased; rows below it were frozen.
+     */
+    private void publish(final int theEraseFrom) {
+        if (myEvents.hasBoardListeners(theEraseFrom > 0)) {
+            int[] cleared = null;
+            if (theEraseFrom == myHeight && myClearedCount > 0) {
+                cleared = Arrays.copyOf(myClearedRows, myClearedCount);
+            }
+            myEvents.boardChanged(new BoardData(this, myVersion, !myPublished,
+                                                myPublishedState, theEraseFrom, cleared,
+                                                myCurrentPiece.getPackedState()));
         }
+        myPublished = true;
+        myPublishedState = myCurrentPiece.getPackedState();
     }
 
     /**
-     * Returns the block color at a specific board point.
+     * Checks the board for complete rows after a piece froze and removes
+     * them.
      * 
-     * @param thePoint the specific Point to check
-     * @return Color of the block at point or null if no block exists.
-     */
-    private Color getPoint(final Point thePoint) {
-        Color c = null;
-        if (isPointOnBoard(myFrozenBlocks, thePoint)) {
-            c = myFrozenBlocks.get(thePoint.y())[thePoint.x()];
+     * @param theState Packed state of the piece that just froze.
+     */
+    private void checkRows(final int theState) {
+        final LinesClearedEvent event = new LinesClearedEvent();
+        event.begin();
+        myClearedCount = myGrid.clearRows(theState, myClearedRows);
+        if (myClearedCount > 0) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.set(MovableTetrisPiece.unpackPiece(theState).name(), myClearedCount,
+                          getFeatures().blocks());
+                event.commit();
+            }
+            Counter.LINES_CLEARED.add(myClearedCount);
+            myEvents.linesCleared(myClearedCount);
         }
-        return c;
     }
 
     /**
-     * Helper function to determine of a movable block has collided with set
-     * blocks.
+     * Gets the occupancy of one board row by the current piece.
      * 
-     * @param theTest movable TetrisPiece to test for collision.
-     * @return Returns true if any of the blocks has collided with a set board
-     *         block.
+     * @param theRow the board row.
+     * @return the occupancy word of the piece in that row, zero if none.
      */
-    private boolean collision(final MovableTetrisPiece theTest) {
-        boolean res = false;
-        for (final Point p : theTest.getBoardPoints()) {
-            if (getPoint(p) != null) {
-                res = true;
+    private long pieceRow(final int theRow) {
+        long result = 0;
+        if (myCurrentPiece != null) {
+            final int state = myCurrentPiece.getPackedState();
+            final TetrisPiece piece = MovableTetrisPiece.unpackPiece(state);
+            final Rotation rotation = MovableTetrisPiece.unpackRotation(state);
+            final int local = theRow - MovableTetrisPiece.unpackY(state);
+            if (local >= piece.minY(rotation) && local <= piece.maxY(rotation)) {
+                result = BoardGrid.shiftRow(piece.rowMask(rotation, local),
+                                            MovableTetrisPiece.unpackX(state));
             }
         }
-        return res;
+        return result;
     }
 
     /**
@@ -456,10 +842,7 @@ public class Board extends Observable {
         if (myNextPiece == null || theRestart) {
             prepareNextMovablePiece();
         }
-        piece = new MovableTetrisPiece(myNextPiece,
-                                       new Point((int) ((myWidth / 2)
-                                                        - (myNextPiece.width() / 2.0)),
-                                                 myHeight));
+        piece = MovableTetrisPiece.valueOf(spawnState(myNextPiece));
 
         prepareNextMovablePiece();
         return piece;
@@ -470,92 +853,14 @@ public class Board extends Observable {
      */
     private void prepareNextMovablePiece() {
         final boolean share = myNextPiece != null;
-        if (myNonRandomPieces == null || myNonRandomPieces.isEmpty()) {
-            myNextPiece = TetrisPiece.random();
-        }
-        else {
-            myNonRandomIndex %= myNonRandomPieces.size();
-            myNextPiece = myNonRandomPieces.get(myNonRandomIndex++);
-        }
+        myNextPiece = myGenerator.next();
         if (share && !myGameStatus.isGameOver()) {
-            setChanged();
-            notifyObservers(myNextPiece);
+            myEvents.nextPiece(myNextPiece);
         }
     }
 
     // Inner classes
 
-    /**
-     * Class to describe the board data to Observers. The board data includes
-     * the current piece and the frozen blocks.
-     */
-    public final class BoardData {
-
-        /**
-         * The board data to pass to observers.
-         */
-        private final List<Color[]> myBoardData;
-
-        /**
-         * Constructor of the Board Data object.
-         */
-        protected BoardData() {
-            myBoardData = getBoard();
-            myBoardData.add(new Color[myWidth]);
-            myBoardData.add(new Color[myWidth]);
-            myBoardData.add(new Color[myWidth]);
-            myBoardData.add(new Color[myWidth]);
-            if (myCurrentPiece != null) {
-                addPieceToBoardData(myBoardData, myCurrentPiece);
-            }
-        }
-
-        /**
-         * Copy and return the board's data.
-         * 
-         * @return Copy of the Board Data.
-         */
-        public List<Color[]> getBoardData() {
-            final List<Color[]> board = new ArrayList<Color[]>();
-            for (final Color[] row : myBoardData) {
-                board.add(row.clone());
-            }
-            return board;
-        }
-
-    } // end inner class BoardData
-
-    /**
-     * Class to describe the lines that have changed to the observers.
-     */
-    public final class CompletedLines {
-
-        /**
-         * The count of lines which were completed and cleared by the current
-         * event.
-         */
-        private final int myLines;
-
-        /**
-         * Completed Lines observation constructor.
-         * 
-         * @param theLines count of lines that have just cleared.
-         */
-        protected CompletedLines(final int theLines) {
-            myLines = theLines;
-        }
-
-        /**
-         * Return how many lines were just cleared.
-         * 
-         * @return List of completed lines.
-         */
-        public int getCompletedLines() {
-            return myLines;
-        }
-
-    } // end inner class CompletedLines
-
     /**
      * Class that tracks the 'game over' status.
      */
@@ -578,8 +883,7 @@ public class Board extends Observable {
          */
         public void reset() {
             myGameOver = false;
-            setChanged();
-            notifyObservers(this);
+            myEvents.gameStatusChanged(myGameOver);
         }
 
         /**
@@ -587,8 +891,7 @@ public class Board extends Observable {
          */
         public void setGameOver() {
             myGameOver = true;
-            setChanged();
-            notifyObservers(this);
+            myEvents.gameStatusChanged(myGameOver);
         }
 
         /**
@@ -602,4 +905,5 @@ public class Board extends Observable {
 
     } // end inner class GameStatus
 
+
 }
@@ -0,0 +1,265 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import metrics.Counter;
+
+/**
+ * Describes a change to the drawn board to listeners. The board data includes
+ * the current piece and the frozen blocks.
+ * 
+ * A BoardData carries only what changed since the previous one: the cells of
+ * the previously drawn piece to erase, the rows removed by a line clear and the
+ * cells of the current piece. Listeners that keep their own grid bring it up to
+ * date with applyTo. The full grid is built only when getBoardData is called.
+ */
+public final class BoardData {
+
+    /**
+     * Every TetrisPiece type, indexed by ordinal.
+     */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /**
+     * The board this data describes.
+     */
+    private final Board myBoard;
+
+    /**
+     * Version of the board this data describes.
+     */
+    private final int myDataVersion;
+
+    /**
+     * True if listeners must rebuild their grid from getBoardData.
+     */
+    private final boolean myFullRefresh;
+
+    /**
+     * Packed state of the piece drawn by the previous BoardData.
+     */
+    private final int myOldState;
+
+    /**
+     * Lowest row from which the previous piece is erased.
+     */
+    private final int myEraseFrom;
+
+    /**
+     * Rows removed by a line clear, lowest first, or null.
+     */
+    private final int[] myCleared;
+
+    /**
+     * Packed state of the current piece.
+     */
+    private final int myNewState;
+
+    /**
+     * The full board data, built on first request.
+     */
+    private List<Color[]> myBoardData;
+
+    /**
+     * Constructor of the Board Data object.
+     * 
+     * @param theBoard the board this data describes.
+     * @param theVersion version of the board this data describes.
+     * @param theFullRefresh true if listeners must rebuild their grid.
+     * @param theOldState packed state of the previously drawn piece.
+     * @param theEraseFrom lowest row from which the previous piece is erased.
+     * @param theCleared rows removed by a line clear, lowest first, or null.
+     * @param theNewState packed state of the current piece.
+     */
+    BoardData(final Board theBoard, final int theVersion, final boolean theFullRefresh,
+              final int theOldState, final int theEraseFrom, final int[] theCleared,
+              final int theNewState) {
+        myBoard = theBoard;
+        myDataVersion = theVersion;
+        myFullRefresh = theFullRefresh;
+        myOldState = theOldState;
+        myEraseFrom = theEraseFrom;
+        myCleared = theCleared;
+        myNewState = theNewState;
+    }
+
+    /**
+     * Copy and return the board's data. The full grid is built from the board
+     * the first time this is called, so it must first be called before the
+     * board changes again, normally while the listener handles the event.
+     * Full refreshes delivered through an executor have their grid built
+     * before they are queued.
+     * 
+     * @return Copy of the Board Data.
+     * @throws IllegalStateException if the board has changed since this data
+     *             was sent and the grid was never built.
+     */
+    public List<Color[]> getBoardData() {
+        prepare();
+        Counter.BOARD_DATA_COPIES.increment();
+        final List<Color[]> board = new ArrayList<Color[]>();
+        for (final Color[] row : myBoardData) {
+            board.add(row.clone());
+        }
+        return board;
+    }
+
+    /**
+     * Returns the version of the board this data describes. A change merged
+     * from several moves carries the version of the last.
+     * 
+     * @return the board version, as Board.getVersion returned it right after
+     *         the change.
+     */
+    public int getVersion() {
+        return myDataVersion;
+    }
+
+    /**
+     * Whether listeners must rebuild their whole grid from getBoardData
+     * instead of applying this change, as after a new game.
+     * 
+     * @return True if the change cannot be applied incrementally.
+     */
+    public boolean isFullRefresh() {
+        return myFullRefresh;
+    }
+
+    /**
+     * Brings a grid that matched the previous BoardData up to date. The grid is
+     * indexed by row, bottom row first, like getBoardData. Rows removed by a
+     * line clear are moved to the top and emptied, so applying a change does
+     * not allocate.
+     * 
+     * Each change is relative to the one before, moves and locks alike, so a
+     * grid kept this way must be given every BoardData in order. A
+     * PieceMovedListener receives all of them.
+     * 
+     * @param theGrid the grid to update.
+     */
+    public void applyTo(final Color[][] theGrid) {
+        paint(theGrid, myOldState, myEraseFrom, null);
+        if (myCleared != null) {
+            int kept = myCleared[0];
+            int next = 0;
+            for (int row = kept; row < theGrid.length; row++) {
+                if (next < myCleared.length && myCleared[next] == row) {
+                    next++;
+                }
+                else {
+                    final Color[] removed = theGrid[kept];
+                    theGrid[kept] = theGrid[row];
+                    theGrid[row] = removed;
+                    kept++;
+                }
+            }
+            for (int row = kept; row < theGrid.length; row++) {
+                Arrays.fill(theGrid[row], null);
+            }
+        }
+        paint(theGrid, myNewState, 0, MovableTetrisPiece.unpackPiece(myNewState).color());
+    }
+
+    /**
+     * Whether this data describes a piece freezing into place rather than a
+     * move of the current piece.
+     * 
+     * @return True if the previous piece froze.
+     */
+    public boolean isLock() {
+        return myEraseFrom > 0;
+    }
+
+    /**
+     * Builds the full grid now if it was not built yet.
+     * 
+     * @throws IllegalStateException if the board has changed since this data
+     *             was sent.
+     */
+    void prepare() {
+        if (myBoardData == null) {
+            if (myDataVersion != myBoard.getVersion()) {
+                throw new IllegalStateException("The board has changed since "
+                                                + "this data was sent");
+            }
+            myBoardData = render();
+        }
+    }
+
+    /**
+     * Combines this move with the move that directly followed it into a single
+     * change from the state before this one to the state after the later one.
+     * Neither may be a lock. A full refresh must already have its grid built.
+     * 
+     * @param theLater the move that followed this one.
+     * @return a BoardData with the effect of both.
+     */
+    BoardData merge(final BoardData theLater) {
+        BoardData result = theLater;
+        if (!theLater.myFullRefresh) {
+            result = new BoardData(theLater.myBoard, theLater.myDataVersion, myFullRefresh,
+                                   myOldState, 0, null, theLater.myNewState);
+            if (myFullRefresh) {
+                final Color[][] grid = myBoardData.toArray(new Color[myBoardData.size()][]);
+                theLater.applyTo(grid);
+                result.myBoardData = Arrays.asList(grid);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the full grid from the board: the frozen blocks, the spare rows
+     * above them and the current piece.
+     * 
+     * @return the rows of the grid, bottom row first.
+     */
+    private List<Color[]> render() {
+        final BoardGrid grid = myBoard.getGrid();
+        final Color[][] rows = new Color[grid.height() + Board.SPARE_ROWS][grid.width()];
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                final byte cell = grid.cell(x, y);
+                if (cell != BoardGrid.EMPTY) {
+                    rows[y][x] = PIECES[cell - 1].color();
+                }
+            }
+        }
+        paint(rows, myNewState, 0, MovableTetrisPiece.unpackPiece(myNewState).color());
+        return new ArrayList<Color[]>(Arrays.asList(rows));
+    }
+
+    /**
+     * Sets the cells of a piece in a grid, skipping cells outside the grid or
+     * below a given row.
+     * 
+     * @param theGrid the grid to update.
+     * @param theState packed state of the piece.
+     * @param theFromRow lowest row to update.
+     * @param theColor color to set, or null to erase.
+     */
+    private void paint(final Color[][] theGrid, final int theState, final int theFromRow,
+                       final Color theColor) {
+        final TetrisPiece piece = MovableTetrisPiece.unpackPiece(theState);
+        final Rotation rotation = MovableTetrisPiece.unpackRotation(theState);
+        final int x = MovableTetrisPiece.unpackX(theState);
+        final int y = MovableTetrisPiece.unpackY(theState);
+        for (int i = 0; i < piece.blocks(); i++) {
+            final int col = x + piece.offsetX(rotation, i);
+            final int row = y + piece.offsetY(rotation, i);
+            if (row >= theFromRow && row < theGrid.length && col >= 0
+                && col < theGrid[row].length) {
+                theGrid[row][col] = theColor;
+            }
+        }
+    }
+}
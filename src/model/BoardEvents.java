@@ -0,0 +1,439 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import metrics.Counter;
+import metrics.Latency;
+
+/**
+ * Delivers the events of one Board to its listeners.
+ * 
+ * Each kind of event has its own listener type and copy-on-write list, so
+ * listeners can be added or removed at any time, even while an event is being
+ * delivered, and delivery never locks.
+ * 
+ * By default events are delivered on the thread that changed the board,
+ * before the board command returns. With an executor set, events are queued
+ * instead and delivered in order by a task run on that executor, scheduled
+ * once for however many events arrive before it runs. Moves that follow each
+ * other in the queue are combined into one, so a listener that falls behind
+ * sees one move per delivery instead of every step.
+ */
+public final class BoardEvents {
+
+    /**
+     * Listeners for moves of the current piece.
+     */
+    private final List<PieceMovedListener> myMovedListeners;
+
+    /**
+     * Listeners for pieces freezing into place.
+     */
+    private final List<PieceLockedListener> myLockedListeners;
+
+    /**
+     * Listeners for completed lines.
+     */
+    private final List<LinesClearedListener> myLinesListeners;
+
+    /**
+     * Listeners for the next piece.
+     */
+    private final List<NextPieceListener> myNextListeners;
+
+    /**
+     * Listeners for game status changes.
+     */
+    private final List<GameStatusListener> myStatusListeners;
+
+    /**
+     * Events waiting for delivery through the executor: a BoardData for a
+     * move or lock, an Integer line count, a TetrisPiece or a Boolean status.
+     */
+    private final Queue<Object> myQueue;
+
+    /**
+     * True while a delivery task is scheduled or running.
+     */
+    private final AtomicBoolean myScheduled;
+
+    /**
+     * The task that delivers queued events.
+     */
+    private final Runnable myDrain;
+
+    /**
+     * Executor for queued delivery, or null to deliver immediately.
+     */
+    private volatile Executor myExecutor;
+
+    /**
+     * Deliveries made, to choose the ones that are timed. Updated without
+     * locking, since a lost update only moves a sample.
+     */
+    private int myDeliveries;
+
+    /**
+     * Creates an event bus with no listeners that delivers immediately.
+     */
+    BoardEvents() {
+        myMovedListeners = new CopyOnWriteArrayList<PieceMovedListener>();
+        myLockedListeners = new CopyOnWriteArrayList<PieceLockedListener>();
+        myLinesListeners = new CopyOnWriteArrayList<LinesClearedListener>();
+        myNextListeners = new CopyOnWriteArrayList<NextPieceListener>();
+        myStatusListeners = new CopyOnWriteArrayList<GameStatusListener>();
+        myQueue = new ConcurrentLinkedQueue<Object>();
+        myScheduled = new AtomicBoolean();
+        myDrain = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+    }
+
+    /**
+     * Sets the executor that delivers events. Events already queued are still
+     * delivered in order.
+     * 
+     * @param theExecutor the executor, such as one that runs tasks on the
+     *            Swing event thread, or null to deliver on the thread that
+     *            changes the board.
+     */
+    public void setExecutor(final Executor theExecutor) {
+        myExecutor = theExecutor;
+        if (!myQueue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Adds a listener for moves of the current piece.
+     * 
+     * @param theListener the listener.
+     */
+    public void addPieceMovedListener(final PieceMovedListener theListener) {
+        myMovedListeners.add(theListener);
+    }
+
+    /**
+     * Removes a listener for moves of the current piece.
+     * 
+     * @param theListener the listener.
+     */
+    public void removePieceMovedListener(final PieceMovedListener theListener) {
+        myMovedListeners.remove(theListener);
+    }
+
+    /**
+     * Adds a listener for pieces freezing into place.
+     * 
+     * @param theListener the listener.
+     */
+    public void addPieceLockedListener(final PieceLockedListener theListener) {
+        myLockedListeners.add(theListener);
+    }
+
+    /**
+     * Removes a listener for pieces freezing into place.
+     * 
+     * @param theListener the listener.
+     */
+    public void removePieceLockedListener(final PieceLockedListener theListener) {
+        myLockedListeners.remove(theListener);
+    }
+
+    /**
+     * Adds a listener for completed lines.
+     * 
+     * @param theListener the listener.
+     */
+    public void addLinesClearedListener(final LinesClearedListener theListener) {
+        myLinesListeners.add(theListener);
+    }
+
+    /**
+     * Removes a listener for completed lines.
+     * 
+     * @param theListener the listener.
+     */
+    public void removeLinesClearedListener(final LinesClearedListener theListener) {
+        myLinesListeners.remove(theListener);
+    }
+
+    /**
+     * Adds a listener for the next piece.
+     * 
+     * @param theListener the listener.
+     */
+    public void addNextPieceListener(final NextPieceListener theListener) {
+        myNextListeners.add(theListener);
+    }
+
+    /**
+     * Removes a listener for the next piece.
+     * 
+     * @param theListener the listener.
+     */
+    public void removeNextPieceListener(final NextPieceListener theListener) {
+        myNextListeners.remove(theListener);
+    }
+
+    /**
+     * Adds a listener for game status changes.
+     * 
+     * @param theListener the listener.
+     */
+    public void addGameStatusListener(final GameStatusListener theListener) {
+        myStatusListeners.add(theListener);
+    }
+
+    /**
+     * Removes a listener for game status changes.
+     * 
+     * @param theListener the listener.
+     */
+    public void removeGameStatusListener(final GameStatusListener theListener) {
+        myStatusListeners.remove(theListener);
+    }
+
+    /**
+     * Whether a move or lock would reach anyone, so that the board can skip
+     * building a BoardData nobody receives.
+     * 
+     * @param theLock true for a lock, false for a move.
+     * @return True if the event would be delivered to a listener.
+     */
+    boolean hasBoardListeners(final boolean theLock) {
+        boolean result = myExecutor != null || !myMovedListeners.isEmpty();
+        if (theLock) {
+            result |= !myLockedListeners.isEmpty();
+        }
+        return result;
+    }
+
+    /**
+     * Sends a move or a lock of the current piece.
+     * 
+     * @param theData the change to the drawn board.
+     */
+    void boardChanged(final BoardData theData) {
+        if (myExecutor == null) {
+            deliverBoard(theData);
+        }
+        else {
+            if (theData.isFullRefresh()) {
+                // the board will have moved on by the time this is delivered
+                theData.prepare();
+            }
+            enqueue(theData);
+        }
+    }
+
+    /**
+     * Sends completed lines.
+     * 
+     * @param theLines the number of lines removed.
+     */
+    void linesCleared(final int theLines) {
+        if (myExecutor == null) {
+            deliverLines(theLines);
+        }
+        else {
+            enqueue(Integer.valueOf(theLines));
+        }
+    }
+
+    /**
+     * Sends the next piece.
+     * 
+     * @param thePiece the piece that plays next.
+     */
+    void nextPiece(final TetrisPiece thePiece) {
+        if (myExecutor == null) {
+            deliverNext(thePiece);
+        }
+        else {
+            enqueue(thePiece);
+        }
+    }
+
+    /**
+     * Sends a game status change.
+     * 
+     * @param theGameOver true if the game is over.
+     */
+    void gameStatusChanged(final boolean theGameOver) {
+        if (myExecutor == null) {
+            deliverStatus(theGameOver);
+        }
+        else {
+            enqueue(Boolean.valueOf(theGameOver));
+        }
+    }
+
+    /**
+     * Queues an event and makes sure a delivery task will run.
+     * 
+     * @param theEvent the event.
+     */
+    private void enqueue(final Object theEvent) {
+        myQueue.add(theEvent);
+        schedule();
+    }
+
+    /**
+     * Schedules a delivery task unless one is already scheduled. Without an
+     * executor the queue is delivered right away.
+     */
+    private void schedule() {
+        if (myScheduled.compareAndSet(false, true)) {
+            final Executor executor = myExecutor;
+            if (executor == null) {
+                drain();
+            }
+            else {
+                executor.execute(myDrain);
+            }
+        }
+    }
+
+    /**
+     * Delivers every queued event in order, combining moves that follow each
+     * other, then schedules again if more events arrived at the end.
+     */
+    private void drain() {
+        Object event = myQueue.poll();
+        while (event != null) {
+            Object next = myQueue.poll();
+            if (event instanceof BoardData && !((BoardData) event).isLock()) {
+                BoardData move = (BoardData) event;
+                while (next instanceof BoardData && !((BoardData) next).isLock()) {
+                    move = move.merge((BoardData) next);
+                    next = myQueue.poll();
+                }
+                event = move;
+            }
+            deliver(event);
+            event = next;
+        }
+        myScheduled.set(false);
+        if (!myQueue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Hands one queued event to the listeners of its kind.
+     * 
+     * @param theEvent the event.
+     */
+    private void deliver(final Object theEvent) {
+        if (theEvent instanceof BoardData) {
+            deliverBoard((BoardData) theEvent);
+        }
+        else if (theEvent instanceof TetrisPiece) {
+            deliverNext((TetrisPiece) theEvent);
+        }
+        else if (theEvent instanceof Integer) {
+            deliverLines(((Integer) theEvent).intValue());
+        }
+        else {
+            deliverStatus(((Boolean) theEvent).booleanValue());
+        }
+    }
+
+    /**
+     * Hands a move or a lock to its listeners. A lock goes to the move
+     * listeners first, since the BoardData chain runs through every move and
+     * lock, and then to the lock listeners.
+     * 
+     * @param theData the change to the drawn board.
+     */
+    private void deliverBoard(final BoardData theData) {
+        int listeners = myMovedListeners.size();
+        if (theData.isLock()) {
+            listeners += myLockedListeners.size();
+        }
+        if (listeners > 0) {
+            final long start = begin(listeners);
+            for (final PieceMovedListener listener : myMovedListeners) {
+                listener.pieceMoved(theData);
+            }
+            if (theData.isLock()) {
+                for (final PieceLockedListener listener : myLockedListeners) {
+                    listener.pieceLocked(theData);
+                }
+            }
+            Latency.DISPATCH.stop(start);
+        }
+    }
+
+    /**
+     * Hands completed lines to their listeners.
+     * 
+     * @param theLines the number of lines removed.
+     */
+    private void deliverLines(final int theLines) {
+        if (!myLinesListeners.isEmpty()) {
+            final long start = begin(myLinesListeners.size());
+            for (final LinesClearedListener listener : myLinesListeners) {
+                listener.linesCleared(theLines);
+            }
+            Latency.DISPATCH.stop(start);
+        }
+    }
+
+    /**
+     * Hands the next piece to its listeners.
+     * 
+     * @param thePiece the piece that plays next.
+     */
+    private void deliverNext(final TetrisPiece thePiece) {
+        if (!myNextListeners.isEmpty()) {
+            final long start = begin(myNextListeners.size());
+            for (final NextPieceListener listener : myNextListeners) {
+                listener.nextPiece(thePiece);
+            }
+            Latency.DISPATCH.stop(start);
+        }
+    }
+
+    /**
+     * Hands a game status change to its listeners.
+     * 
+     * @param theGameOver true if the game is over.
+     */
+    private void deliverStatus(final boolean theGameOver) {
+        if (!myStatusListeners.isEmpty()) {
+            final long start = begin(myStatusListeners.size());
+            for (final GameStatusListener listener : myStatusListeners) {
+                listener.gameStatusChanged(theGameOver);
+            }
+            Latency.DISPATCH.stop(start);
+        }
+    }
+
+    /**
+     * Counts a delivery and starts timing it if it is one of the samples.
+     * 
+     * @param theListeners the number of listeners the event is handed to.
+     * @return the start time to pass to Latency.DISPATCH.stop.
+     */
+    private long begin(final int theListeners) {
+        Counter.NOTIFICATIONS.add(theListeners);
+        myDeliveries++;
+        return Latency.DISPATCH.sample(myDeliveries);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * A read-only view of the surface of the frozen blocks on a Board. Every value
+ * is kept up to date as pieces freeze and lines clear, so reading one is
+ * constant time; nothing here allocates.
+ * 
+ * Rows and columns are counted from the bottom left corner, as on the Board.
+ * The current, falling piece is not part of the surface.
+ */
+public interface BoardFeatures {
+
+    /**
+     * Returns the number of columns.
+     * 
+     * @return the width of the board.
+     */
+    int width();
+
+    /**
+     * Returns the height of a column: one more than its highest filled row, or
+     * zero if the column is empty.
+     * 
+     * @param theColumn the column, from 0 to width() - 1.
+     * @return the height of the column.
+     */
+    int columnHeight(int theColumn);
+
+    /**
+     * Returns the height of the tallest column.
+     * 
+     * @return the highest column height.
+     */
+    int maxHeight();
+
+    /**
+     * Returns the sum of all column heights.
+     * 
+     * @return the aggregate height.
+     */
+    int aggregateHeight();
+
+    /**
+     * Returns the surface contour between a column and the column to its
+     * right, as the difference of their heights.
+     * 
+     * @param theColumn the column, from 0 to width() - 2.
+     * @return columnHeight(theColumn + 1) - columnHeight(theColumn).
+     */
+    int contour(int theColumn);
+
+    /**
+     * Returns the bumpiness of the surface, the sum of the absolute contour
+     * values across the board.
+     * 
+     * @return the bumpiness.
+     */
+    int bumpiness();
+
+    /**
+     * Returns the number of filled cells.
+     * 
+     * @return the number of frozen blocks.
+     */
+    int blocks();
+
+    /**
+     * Returns the number of empty cells below the top of their column.
+     * 
+     * @return the hole count.
+     */
+    int holes();
+
+    /**
+     * Returns the number of empty cells below the top of one column.
+     * 
+     * @param theColumn the column, from 0 to width() - 1.
+     * @return the hole count of the column.
+     */
+    int columnHoles(int theColumn);
+
+    /**
+     * Returns the number of times a row changes between filled and empty,
+     * summed over every row that holds a block. The side walls count as
+     * filled.
+     * 
+     * @return the row transitions.
+     */
+    int rowTransitions();
+
+    /**
+     * Returns the number of times a column changes between filled and empty
+     * from the floor up to the top of the column, summed over every column.
+     * The floor counts as filled.
+     * 
+     * @return the column transitions.
+     */
+    int columnTransitions();
+}
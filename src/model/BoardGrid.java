@@ -0,0 +1,497 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The frozen blocks of a Tetris board.
+ * 
+ * Occupancy is kept as one word per row, with bit x set when column x is
+ * filled, so that collision, bounds and full row tests are shifts and ANDs
+ * against the row masks precomputed by TetrisPiece. The color of each block is
+ * kept separately as a small index per cell.
+ * 
+ * Rows are copied on write. A snapshot shares every row with the grid it was
+ * taken from, and a row is copied only when one side writes to it, so taking a
+ * snapshot costs the same no matter how large the board is.
+ * 
+ * The grid also keeps a BoardSurface of column heights, holes and transitions
+ * up to date as blocks freeze and rows clear, and a Zobrist hash of which cells
+ * are filled, updated for each cell that freezes and each row that moves.
+ */
+final class BoardGrid {
+
+    /**
+     * Widest grid that fits in one occupancy word per row.
+     */
+    static final int MAX_WIDTH = Long.SIZE;
+
+    /**
+     * Cell value of an empty block.
+     */
+    static final byte EMPTY = 0;
+
+    /**
+     * Width of the grid.
+     */
+    private final int myWidth;
+
+    /**
+     * Height of the grid.
+     */
+    private final int myHeight;
+
+    /**
+     * Occupancy word of a completely filled row.
+     */
+    private final long myFullRow;
+
+    /**
+     * Occupancy of each row.
+     */
+    private long[] myRows;
+
+    /**
+     * Color index of each cell, one row array per row. A cell holds EMPTY or
+     * the ordinal of the TetrisPiece that filled it plus one. Line clears move
+     * row arrays rather than cells, and reuse cleared rows as new top rows.
+     */
+    private byte[][] myCells;
+
+    /**
+     * The epoch in which each row array was last copied by this grid. A row
+     * whose epoch differs from myEpoch may be shared with a snapshot.
+     */
+    private final int[] myRowEpochs;
+
+    /**
+     * The current epoch, advanced whenever this grid starts sharing its rows.
+     */
+    private int myEpoch;
+
+    /**
+     * True while myRows and myCells themselves are shared with a snapshot.
+     */
+    private boolean myShared;
+
+    /**
+     * Surface features of the frozen blocks, kept up to date on every change.
+     */
+    private final BoardSurface mySurface;
+
+    /**
+     * Zobrist hash of the filled cells.
+     */
+    private long myHash;
+
+    /**
+     * Creates an empty grid.
+     * 
+     * @param theWidth Width of the grid.
+     * @param theHeight Height of the grid.
+     * @throws IllegalArgumentException if theWidth is wider than 64 columns.
+     */
+    BoardGrid(final int theWidth, final int theHeight) {
+        if (theWidth > MAX_WIDTH) {
+            throw new IllegalArgumentException("Board width must not exceed " + MAX_WIDTH);
+        }
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myFullRow = -1L >>> (MAX_WIDTH - myWidth);
+        myRows = new long[myHeight];
+        myCells = new byte[myHeight][myWidth];
+        myRowEpochs = new int[myHeight];
+        mySurface = new BoardSurface(myWidth, myHeight, myFullRow);
+    }
+
+    /**
+     * Creates a grid that shares every row with another grid.
+     * 
+     * @param theOther the grid to share rows with.
+     */
+    private BoardGrid(final BoardGrid theOther) {
+        myWidth = theOther.myWidth;
+        myHeight = theOther.myHeight;
+        myFullRow = theOther.myFullRow;
+        myRows = theOther.myRows;
+        myCells = theOther.myCells;
+        myRowEpochs = new int[myHeight];
+        myEpoch = 1;
+        myShared = true;
+        mySurface = theOther.mySurface.snapshot();
+        myHash = theOther.myHash;
+    }
+
+    /**
+     * Returns the width of the grid.
+     * 
+     * @return the width.
+     */
+    int width() {
+        return myWidth;
+    }
+
+    /**
+     * Returns the height of the grid.
+     * 
+     * @return the height.
+     */
+    int height() {
+        return myHeight;
+    }
+
+    /**
+     * Returns the surface features of the grid. The view stays live: it
+     * follows every later change to this grid.
+     * 
+     * @return the surface features.
+     */
+    BoardFeatures features() {
+        return mySurface;
+    }
+
+    /**
+     * Returns the occupancy word of a row.
+     * 
+     * @param theRow the row.
+     * @return the occupancy word, with bit x set when column x is filled.
+     */
+    long row(final int theRow) {
+        return myRows[theRow];
+    }
+
+    /**
+     * Returns the color index of a cell.
+     * 
+     * @param theX the column.
+     * @param theY the row.
+     * @return EMPTY or the ordinal of the TetrisPiece that filled it plus one.
+     */
+    byte cell(final int theX, final int theY) {
+        return myCells[theY][theX];
+    }
+
+    /**
+     * Returns the Zobrist hash of the filled cells. Grids with the same cells
+     * filled have the same hash, whatever the colors and however they got
+     * there.
+     * 
+     * @return the hash.
+     */
+    long hash() {
+        return myHash;
+    }
+
+    /**
+     * Tests whether a packed piece state is inside the grid bounds and clear of
+     * every block. The top of the grid is open.
+     * 
+     * @param theState Packed piece state to test.
+     * @return True if the piece state is legal; false otherwise.
+     */
+    boolean isLegal(final int theState) {
+        final TetrisPiece piece = MovableTetrisPiece.unpackPiece(theState);
+        final Rotation rotation = MovableTetrisPiece.unpackRotation(theState);
+        final int x = MovableTetrisPiece.unpackX(theState);
+        final int y = MovableTetrisPiece.unpackY(theState);
+        boolean result = x + piece.minX(rotation) >= 0 && x + piece.maxX(rotation) < myWidth
+                         && y + piece.minY(rotation) >= 0;
+        final int top = Math.min(piece.maxY(rotation), myHeight - 1 - y);
+        for (int row = piece.minY(rotation); result && row <= top; row++) {
+            result = (shiftRow(piece.rowMask(rotation, row), x) & myRows[y + row]) == 0;
+        }
+        return result;
+    }
+
+    /**
+     * Counts how many rows a piece can fall straight down before it rests on
+     * a block or the floor. The floor bounds the search, and each row is a
+     * single AND per piece row against the occupancy words.
+     * 
+     * @param theState Packed state of a legal piece.
+     * @return the number of rows the piece can fall.
+     */
+    int dropDistance(final int theState) {
+        final TetrisPiece piece = MovableTetrisPiece.unpackPiece(theState);
+        final Rotation rotation = MovableTetrisPiece.unpackRotation(theState);
+        final int x = MovableTetrisPiece.unpackX(theState);
+        final int y = MovableTetrisPiece.unpackY(theState);
+        final int low = piece.minY(rotation);
+        final int high = piece.maxY(rotation);
+        final int floor = y + low;
+        int distance = 0;
+        boolean clear = true;
+        while (clear && distance < floor) {
+            final int base = y - distance - 1;
+            for (int row = low; clear && row <= high; row++) {
+                if (base + row < myHeight) {
+                    clear = (shiftRow(piece.rowMask(rotation, row), x)
+                             & myRows[base + row]) == 0;
+                }
+            }
+            if (clear) {
+                distance++;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Counts the rows a piece would complete if it froze where it is, without
+     * freezing it.
+     * 
+     * @param theState Packed state of a legal piece.
+     * @return the number of rows it would complete.
+     */
+    int completedRows(final int theState) {
+        final TetrisPiece piece = MovableTetrisPiece.unpackPiece(theState);
+        final Rotation rotation = MovableTetrisPiece.unpackRotation(theState);
+        final int x = MovableTetrisPiece.unpackX(theState);
+        final int y = MovableTetrisPiece.unpackY(theState);
+        final int top = Math.min(piece.maxY(rotation), myHeight - 1 - y);
+        int result = 0;
+        for (int row = piece.minY(rotation); row <= top; row++) {
+            if ((shiftRow(piece.rowMask(rotation, row), x) | myRows[y + row]) == myFullRow) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Freezes a piece into the grid. Blocks above the top of the grid are
+     * dropped.
+     * 
+     * @param theState Packed state of the piece to freeze.
+     * @return True if every block fit inside the grid.
+     */
+    boolean freeze(final int theState) {
+        final TetrisPiece piece = MovableTetrisPiece.unpackPiece(theState);
+        final Rotation rotation = MovableTetrisPiece.unpackRotation(theState);
+        final byte color = (byte) (piece.ordinal() + 1);
+        final int x = MovableTetrisPiece.unpackX(theState);
+        final int y = MovableTetrisPiece.unpackY(theState);
+        final int right = x + piece.maxX(rotation);
+        final int low = y + piece.minY(rotation);
+        final int high = Math.min(y + piece.maxY(rotation), myHeight - 1);
+        boolean inside = true;
+        unshare();
+        if (low <= high) {
+            mySurface.removeRows(myRows, low, high);
+        }
+        for (int row = piece.minY(rotation); row <= piece.maxY(rotation); row++) {
+            final long bits = shiftRow(piece.rowMask(rotation, row), x);
+            if (y + row < myHeight) {
+                myRows[y + row] |= bits;
+                final byte[] cells = writableRow(y + row);
+                for (int col = x + piece.minX(rotation); col <= right; col++) {
+                    if ((bits & (1L << col)) != 0) {
+                        cells[col] = color;
+                        mySurface.fill(col, y + row);
+                        myHash ^= Zobrist.cell(col, y + row);
+                    }
+                }
+            }
+            else {
+                inside = false;
+            }
+        }
+        if (low <= high) {
+            mySurface.addRows(myRows, low, high);
+        }
+        return inside;
+    }
+
+    /**
+     * Removes the complete rows among those a piece touched. Every other row
+     * was already checked when an earlier piece froze. Complete rows are
+     * removed in a single compaction pass that moves row arrays instead of
+     * cells; the removed arrays end up on top, where they are emptied.
+     * 
+     * @param theState Packed state of the piece that just froze.
+     * @param theCleared receives the removed rows, lowest first; needs room for
+     *            four rows.
+     * @return the number of rows removed.
+     */
+    int clearRows(final int theState, final int[] theCleared) {
+        final TetrisPiece piece = MovableTetrisPiece.unpackPiece(theState);
+        final Rotation rotation = MovableTetrisPiece.unpackRotation(theState);
+        final int y = MovableTetrisPiece.unpackY(theState);
+        final int top = Math.min(y + piece.maxY(rotation), myHeight - 1);
+        int first = y + piece.minY(rotation);
+        while (first <= top && myRows[first] != myFullRow) {
+            first++;
+        }
+        int count = 0;
+        if (first <= top) {
+            unshare();
+            final int filled = Math.min(mySurface.maxHeight(), myHeight) - 1;
+            myHash ^= hashRows(first, filled);
+            theCleared[count++] = first;
+            int kept = first;
+            for (int row = first + 1; row < myHeight; row++) {
+                if (row <= top && myRows[row] == myFullRow) {
+                    theCleared[count++] = row;
+                }
+                else {
+                    swapRows(kept, row);
+                    kept++;
+                }
+            }
+            for (int row = kept; row < myHeight; row++) {
+                emptyRow(row);
+            }
+            mySurface.clearRows(myRows, theCleared, count);
+            myHash ^= hashRows(first, filled - count);
+        }
+        return count;
+    }
+
+    /**
+     * Empties every row.
+     */
+    void clear() {
+        unshare();
+        for (int row = 0; row < myHeight; row++) {
+            emptyRow(row);
+        }
+        mySurface.clear();
+        myHash = 0;
+    }
+
+    /**
+     * Takes a snapshot of the grid. The snapshot shares every row with this
+     * grid until one of them writes to it.
+     * 
+     * @return a grid holding the current blocks.
+     */
+    BoardGrid snapshot() {
+        share();
+        return new BoardGrid(this);
+    }
+
+    /**
+     * Replaces the blocks of this grid with those of a snapshot, sharing its
+     * rows until one of them writes to it.
+     * 
+     * @param theSnapshot a snapshot of a grid with the same dimensions.
+     */
+    void restore(final BoardGrid theSnapshot) {
+        theSnapshot.share();
+        myRows = theSnapshot.myRows;
+        myCells = theSnapshot.myCells;
+        mySurface.restore(theSnapshot.mySurface);
+        myHash = theSnapshot.myHash;
+        share();
+    }
+
+    /**
+     * Moves a row mask of piece-local columns to board columns.
+     * 
+     * @param theMask occupancy mask of piece-local columns.
+     * @param theX board column of the piece's local column zero.
+     * @return the occupancy mask in board columns.
+     */
+    static long shiftRow(final long theMask, final int theX) {
+        final long result;
+        if (theX < 0) {
+            result = theMask >>> -theX;
+        }
+        else {
+            result = theMask << theX;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the XOR of the Zobrist keys of the filled cells in a range of
+     * rows.
+     * 
+     * @param theLow the lowest row.
+     * @param theHigh the highest row.
+     * @return the hash of the rows.
+     */
+    private long hashRows(final int theLow, final int theHigh) {
+        long result = 0;
+        for (int row = theLow; row <= theHigh; row++) {
+            result ^= Zobrist.row(myRows[row], row);
+        }
+        return result;
+    }
+
+    /**
+     * Marks every row and the row tables as shared.
+     */
+    private void share() {
+        myShared = true;
+        myEpoch++;
+    }
+
+    /**
+     * Copies the row tables if they are shared, so that rows can be moved and
+     * occupancy words written. The row arrays are still shared afterwards.
+     */
+    private void unshare() {
+        if (myShared) {
+            myRows = myRows.clone();
+            myCells = myCells.clone();
+            myShared = false;
+        }
+    }
+
+    /**
+     * Returns a row array that this grid may write to, copying it first if it
+     * may be shared. The row tables must already be unshared.
+     * 
+     * @param theRow the row.
+     * @return the writable row array.
+     */
+    private byte[] writableRow(final int theRow) {
+        if (myRowEpochs[theRow] != myEpoch) {
+            myCells[theRow] = myCells[theRow].clone();
+            myRowEpochs[theRow] = myEpoch;
+        }
+        return myCells[theRow];
+    }
+
+    /**
+     * Empties a row, reusing its array unless it may be shared. The row tables
+     * must already be unshared.
+     * 
+     * @param theRow the row.
+     */
+    private void emptyRow(final int theRow) {
+        myRows[theRow] = 0L;
+        if (myRowEpochs[theRow] == myEpoch) {
+            Arrays.fill(myCells[theRow], EMPTY);
+        }
+        else {
+            myCells[theRow] = new byte[myWidth];
+            myRowEpochs[theRow] = myEpoch;
+        }
+    }
+
+    /**
+     * Swaps two rows together with their ownership. The row tables must
+     * already be unshared.
+     * 
+     * @param theLow the row that receives the upper row.
+     * @param theHigh the row that receives the lower row.
+     */
+    private void swapRows(final int theLow, final int theHigh) {
+        final byte[] cells = myCells[theLow];
+        myCells[theLow] = myCells[theHigh];
+        myCells[theHigh] = cells;
+        final int epoch = myRowEpochs[theLow];
+        myRowEpochs[theLow] = myRowEpochs[theHigh];
+        myRowEpochs[theHigh] = epoch;
+        final long bits = myRows[theLow];
+        myRows[theLow] = myRows[theHigh];
+        myRows[theHigh] = bits;
+    }
+}
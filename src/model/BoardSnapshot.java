@@ -0,0 +1,125 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * A saved position of a Board: the frozen blocks, the current and next pieces,
+ * the position of the piece generator and the game over status. Snapshots are
+ * immutable and can be restored any number of times, into any board of the
+ * same size.
+ * 
+ * A snapshot shares its rows of frozen blocks with the board it was taken from
+ * and with other snapshots, so it costs little more than the object itself.
+ */
+public final class BoardSnapshot {
+
+    /**
+     * The frozen blocks, sharing rows with the board they came from.
+     */
+    private final BoardGrid myGrid;
+
+    /**
+     * The current piece.
+     */
+    private final MovableTetrisPiece myPiece;
+
+    /**
+     * The next piece.
+     */
+    private final TetrisPiece myNext;
+
+    /**
+     * A copy of the piece generator, at the position it had.
+     */
+    private final PieceGenerator myGenerator;
+
+    /**
+     * The game over status.
+     */
+    private final boolean myGameOver;
+
+    /**
+     * Version of the board when the snapshot was taken.
+     */
+    private final int myVersion;
+
+    /**
+     * Snapshot constructor.
+     * 
+     * @param theGrid the frozen blocks.
+     * @param thePiece the current piece.
+     * @param theNext the next piece.
+     * @param theGenerator a copy of the piece generator.
+     * @param theGameOver the game over status.
+     * @param theVersion version of the board.
+     */
+    BoardSnapshot(final BoardGrid theGrid, final MovableTetrisPiece thePiece,
+                  final TetrisPiece theNext, final PieceGenerator theGenerator,
+                  final boolean theGameOver, final int theVersion) {
+        myGrid = theGrid;
+        myPiece = thePiece;
+        myNext = theNext;
+        myGenerator = theGenerator;
+        myGameOver = theGameOver;
+        myVersion = theVersion;
+    }
+
+    /**
+     * Returns the frozen blocks.
+     * 
+     * @return the frozen blocks.
+     */
+    BoardGrid getGrid() {
+        return myGrid;
+    }
+
+    /**
+     * Returns the current piece.
+     * 
+     * @return the current piece, or null if the board was never cleared.
+     */
+    MovableTetrisPiece getPiece() {
+        return myPiece;
+    }
+
+    /**
+     * Returns the next piece.
+     * 
+     * @return the next piece, or null if the board was never cleared.
+     */
+    TetrisPiece getNext() {
+        return myNext;
+    }
+
+    /**
+     * Returns the copy of the piece generator. Restoring copies it again, so
+     * the snapshot can be restored any number of times.
+     * 
+     * @return the piece generator.
+     */
+    PieceGenerator getGenerator() {
+        return myGenerator;
+    }
+
+    /**
+     * Returns the version of the board when the snapshot was taken.
+     * 
+     * @return the version.
+     */
+    int getVersion() {
+        return myVersion;
+    }
+
+    /**
+     * Whether the game was over.
+     * 
+     * @return True if the game was over.
+     */
+    public boolean isGameOver() {
+        return myGameOver;
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * The surface features of a BoardGrid, kept up to date by the grid as it
+ * changes.
+ * 
+ * Freezing a piece updates the heights and counts of the columns it touched
+ * and the transitions of the rows it touched and their neighbours. Clearing
+ * lines lowers every column by the number of cleared rows, since a complete
+ * row has a block in every column. Like the grid, the column tables are copied
+ * on write, so a snapshot shares them until either side changes.
+ */
+final class BoardSurface implements BoardFeatures {
+
+    /**
+     * Width of the surface.
+     */
+    private final int myWidth;
+
+    /**
+     * Height of the grid the surface belongs to.
+     */
+    private final int myHeight;
+
+    /**
+     * Occupancy word of a completely filled row.
+     */
+    private final long myFullRow;
+
+    /**
+     * Height of each column.
+     */
+    private int[] myHeights;
+
+    /**
+     * Number of filled cells in each column.
+     */
+    private int[] myCounts;
+
+    /**
+     * True while myHeights and myCounts are shared with a snapshot.
+     */
+    private boolean myShared;
+
+    /**
+     * Height of the tallest column.
+     */
+    private int myMaxHeight;
+
+    /**
+     * Sum of the column heights.
+     */
+    private int myAggregateHeight;
+
+    /**
+     * Sum of the absolute height differences of neighbouring columns.
+     */
+    private int myBumpiness;
+
+    /**
+     * Number of filled cells.
+     */
+    private int myBlocks;
+
+    /**
+     * Row transitions summed over all rows.
+     */
+    private int myRowTransitions;
+
+    /**
+     * Changes between vertically neighbouring cells summed over every row,
+     * counting the floor as filled. This includes one change at the top of
+     * every column shorter than the grid, which columnTransitions() removes.
+     */
+    private int myBoundaries;
+
+    /**
+     * Number of columns as tall as the grid.
+     */
+    private int myFullColumns;
+
+    /**
+     * Creates the surface of an empty grid.
+     * 
+     * @param theWidth Width of the grid.
+     * @param theHeight Height of the grid.
+     * @param theFullRow Occupancy word of a completely filled row.
+     */
+    BoardSurface(final int theWidth, final int theHeight, final long theFullRow) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myFullRow = theFullRow;
+        myHeights = new int[myWidth];
+        myCounts = new int[myWidth];
+        myBoundaries = myWidth;
+    }
+
+    /**
+     * Creates a surface that shares its column tables with another surface.
+     * 
+     * @param theOther the surface to share with.
+     */
+    private BoardSurface(final BoardSurface theOther) {
+        myWidth = theOther.myWidth;
+        myHeight = theOther.myHeight;
+        myFullRow = theOther.myFullRow;
+        restore(theOther);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int width() {
+        return myWidth;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int columnHeight(final int theColumn) {
+        return myHeights[theColumn];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int maxHeight() {
+        return myMaxHeight;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int aggregateHeight() {
+        return myAggregateHeight;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int contour(final int theColumn) {
+        return myHeights[theColumn + 1] - myHeights[theColumn];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int bumpiness() {
+        return myBumpiness;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int blocks() {
+        return myBlocks;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int holes() {
+        return myAggregateHeight - myBlocks;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int columnHoles(final int theColumn) {
+        return myHeights[theColumn] - myCounts[theColumn];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int rowTransitions() {
+        return myRowTransitions;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int columnTransitions() {
+        return myBoundaries - (myWidth - myFullColumns);
+    }
+
+    /**
+     * Takes a snapshot of the surface, sharing the column tables until either
+     * side changes them.
+     * 
+     * @return a surface holding the current features.
+     */
+    BoardSurface snapshot() {
+        return new BoardSurface(this);
+    }
+
+    /**
+     * Replaces the features of this surface with those of a snapshot, sharing
+     * its column tables until either side changes them.
+     * 
+     * @param theSnapshot a snapshot of a surface with the same dimensions.
+     */
+    void restore(final BoardSurface theSnapshot) {
+        theSnapshot.myShared = true;
+        myHeights = theSnapshot.myHeights;
+        myCounts = theSnapshot.myCounts;
+        myShared = true;
+        myMaxHeight = theSnapshot.myMaxHeight;
+        myAggregateHeight = theSnapshot.myAggregateHeight;
+        myBumpiness = theSnapshot.myBumpiness;
+        myBlocks = theSnapshot.myBlocks;
+        myRowTransitions = theSnapshot.myRowTransitions;
+        myBoundaries = theSnapshot.myBoundaries;
+        myFullColumns = theSnapshot.myFullColumns;
+    }
+
+    /**
+     * Removes the terms of a range of rows before they are written. The
+     * boundary above the range is included, since it changes with the top row.
+     * 
+     * @param theRows the occupancy words of the grid.
+     * @param theLow the lowest row about to change.
+     * @param theHigh the highest row about to change.
+     */
+    void removeRows(final long[] theRows, final int theLow, final int theHigh) {
+        myRowTransitions -= rowTransitions(theRows, theLow, theHigh);
+        myBoundaries -= boundaries(theRows, theLow, Math.min(theHigh + 1, myHeight - 1));
+    }
+
+    /**
+     * Adds back the terms of a range of rows after they were written.
+     * 
+     * @param theRows the occupancy words of the grid.
+     * @param theLow the lowest row that changed.
+     * @param theHigh the highest row that changed.
+     */
+    void addRows(final long[] theRows, final int theLow, final int theHigh) {
+        myRowTransitions += rowTransitions(theRows, theLow, theHigh);
+        myBoundaries += boundaries(theRows, theLow, Math.min(theHigh + 1, myHeight - 1));
+    }
+
+    /**
+     * Records a block frozen into a cell.
+     * 
+     * @param theColumn the column of the block.
+     * @param theRow the row of the block.
+     */
+    void fill(final int theColumn, final int theRow) {
+        unshare();
+        myCounts[theColumn]++;
+        myBlocks++;
+        if (theRow >= myHeights[theColumn]) {
+            setHeight(theColumn, theRow + 1);
+        }
+    }
+
+    /**
+     * Records that complete rows were removed and the rows above moved down.
+     * Every row transition term is unchanged: a complete row and an empty row
+     * both have none. Column boundaries are counted again from the lowest
+     * cleared row up to the old top.
+     * 
+     * @param theRows the occupancy words of the grid after the clear.
+     * @param theCleared the removed rows, lowest first.
+     * @param theCount the number of removed rows.
+     */
+    void clearRows(final long[] theRows, final int[] theCleared, final int theCount) {
+        unshare();
+        final int top = Math.min(myMaxHeight, myHeight - 1);
+        myBoundaries += boundariesAfterClear(theRows, theCleared, theCount, top);
+        myMaxHeight = 0;
+        for (int col = 0; col < myWidth; col++) {
+            final long bit = 1L << col;
+            int height = myHeights[col] - theCount;
+            while (height > 0 && (theRows[height - 1] & bit) == 0) {
+                height--;
+            }
+            myCounts[col] -= theCount;
+            setHeight(col, height);
+        }
+        myBlocks -= theCount * myWidth;
+    }
+
+    /**
+     * Resets the surface to that of an empty grid.
+     */
+    void clear() {
+        myHeights = new int[myWidth];
+        myCounts = new int[myWidth];
+        myShared = false;
+        myMaxHeight = 0;
+        myAggregateHeight = 0;
+        myBumpiness = 0;
+        myBlocks = 0;
+        myRowTransitions = 0;
+        myBoundaries = myWidth;
+        myFullColumns = 0;
+    }
+
+    /**
+     * Counts how much a clear changed the column boundaries. Only the rows
+     * from the lowest cleared row up to the old top changed; the rows above
+     * were empty before and after. The old words of those rows are the kept
+     * rows with the complete rows put back in their places.
+     * 
+     * @param theRows the occupancy words of the grid after the clear.
+     * @param theCleared the removed rows, lowest first.
+     * @param theCount the number of removed rows.
+     * @param theTop the lowest row that was empty before the clear.
+     * @return the change in the boundary total.
+     */
+    private int boundariesAfterClear(final long[] theRows, final int[] theCleared,
+                                     final int theCount, final int theTop) {
+        final int lowest = theCleared[0];
+        int before = 0;
+        long below = wordBelow(theRows, lowest);
+        int source = lowest;
+        int next = 0;
+        for (int row = lowest; row <= theTop; row++) {
+            final long word;
+            if (next < theCount && theCleared[next] == row) {
+                word = myFullRow;
+                next++;
+            }
+            else {
+                word = theRows[source++];
+            }
+            before += Long.bitCount(below ^ word);
+            below = word;
+        }
+        return boundaries(theRows, lowest, theTop) - before;
+    }
+
+    /**
+     * Counts the changes between each row in a range and the row below it.
+     * 
+     * @param theRows the occupancy words of the grid.
+     * @param theLow the lowest row.
+     * @param theHigh the highest row.
+     * @return the number of vertical changes.
+     */
+    private int boundaries(final long[] theRows, final int theLow, final int theHigh) {
+        int result = 0;
+        long below = wordBelow(theRows, theLow);
+        for (int row = theLow; row <= theHigh; row++) {
+            result += Long.bitCount(below ^ theRows[row]);
+            below = theRows[row];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the word under a row, the floor counting as a full row.
+     * 
+     * @param theRows the occupancy words of the grid.
+     * @param theRow the row.
+     * @return the occupancy word of the row below.
+     */
+    private long wordBelow(final long[] theRows, final int theRow) {
+        long result = myFullRow;
+        if (theRow > 0) {
+            result = theRows[theRow - 1];
+        }
+        return result;
+    }
+
+    /**
+     * Counts the row transitions of a range of rows. Empty rows have none.
+     * 
+     * @param theRows the occupancy words of the grid.
+     * @param theLow the lowest row.
+     * @param theHigh the highest row.
+     * @return the number of horizontal changes.
+     */
+    private int rowTransitions(final long[] theRows, final int theLow, final int theHigh) {
+        int result = 0;
+        for (int row = theLow; row <= theHigh; row++) {
+            final long word = theRows[row];
+            if (word != 0) {
+                // the left wall is shifted in as bit 0, the right wall checked apart
+                result += Long.bitCount((word ^ (word << 1 | 1L)) & myFullRow);
+                if ((word >>> (myWidth - 1) & 1L) == 0) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Changes the height of a column, keeping the totals that depend on it.
+     * 
+     * @param theColumn the column.
+     * @param theHeight the new height.
+     */
+    private void setHeight(final int theColumn, final int theHeight) {
+        final int old = myHeights[theColumn];
+        if (theColumn > 0) {
+            myBumpiness += Math.abs(theHeight - myHeights[theColumn - 1])
+                           - Math.abs(old - myHeights[theColumn - 1]);
+        }
+        if (theColumn < myWidth - 1) {
+            myBumpiness += Math.abs(theHeight - myHeights[theColumn + 1])
+                           - Math.abs(old - myHeights[theColumn + 1]);
+        }
+        if (old == myHeight) {
+            myFullColumns--;
+        }
+        if (theHeight == myHeight) {
+            myFullColumns++;
+        }
+        myHeights[theColumn] = theHeight;
+        myAggregateHeight += theHeight - old;
+        myMaxHeight = Math.max(myMaxHeight, theHeight);
+    }
+
+    /**
+     * Copies the column tables if they are shared with a snapshot.
+     */
+    private void unshare() {
+        if (myShared) {
+            myHeights = myHeights.clone();
+            myCounts = myCounts.clone();
+            myShared = false;
+        }
+    }
+}
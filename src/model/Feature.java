@@ -0,0 +1,93 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * The measures of a board that a Heuristic weighs, each read from the
+ * BoardFeatures of the board after a placement and the lines it cleared.
+ */
+public enum Feature {
+
+    /**
+     * Sum of the column heights.
+     */
+    AGGREGATE_HEIGHT {
+        @Override
+        public double value(final BoardFeatures theFeatures, final int theLines) {
+            return theFeatures.aggregateHeight();
+        }
+    },
+
+    /**
+     * Lines cleared by the placement.
+     */
+    COMPLETE_LINES {
+        @Override
+        public double value(final BoardFeatures theFeatures, final int theLines) {
+            return theLines;
+        }
+    },
+
+    /**
+     * Empty cells below the top of their column.
+     */
+    HOLES {
+        @Override
+        public double value(final BoardFeatures theFeatures, final int theLines) {
+            return theFeatures.holes();
+        }
+    },
+
+    /**
+     * Sum of the height differences of neighbouring columns.
+     */
+    BUMPINESS {
+        @Override
+        public double value(final BoardFeatures theFeatures, final int theLines) {
+            return theFeatures.bumpiness();
+        }
+    },
+
+    /**
+     * Height of the tallest column.
+     */
+    MAX_HEIGHT {
+        @Override
+        public double value(final BoardFeatures theFeatures, final int theLines) {
+            return theFeatures.maxHeight();
+        }
+    },
+
+    /**
+     * Changes between filled and empty along the rows.
+     */
+    ROW_TRANSITIONS {
+        @Override
+        public double value(final BoardFeatures theFeatures, final int theLines) {
+            return theFeatures.rowTransitions();
+        }
+    },
+
+    /**
+     * Changes between filled and empty up the columns.
+     */
+    COLUMN_TRANSITIONS {
+        @Override
+        public double value(final BoardFeatures theFeatures, final int theLines) {
+            return theFeatures.columnTransitions();
+        }
+    };
+
+    /**
+     * Measures this feature.
+     * 
+     * @param theFeatures the surface of the board after a placement.
+     * @param theLines the lines the placement cleared.
+     * @return the value of the feature.
+     */
+    public abstract double value(BoardFeatures theFeatures, int theLines);
+}
@@ -0,0 +1,22 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.EventListener;
+
+/**
+ * Listens for a Board starting or ending a game.
+ */
+public interface GameStatusListener extends EventListener {
+
+    /**
+     * Called when a game starts or ends.
+     * 
+     * @param theGameOver true if the game is over, false if a game started.
+     */
+    void gameStatusChanged(boolean theGameOver);
+}
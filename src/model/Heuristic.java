@@ -0,0 +1,90 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Scores a board after a placement as a weighted sum of its Features. Higher
+ * scores are better. Heuristics are immutable and can be shared by any number
+ * of searches on any number of threads.
+ */
+public final class Heuristic {
+
+    /**
+     * Every feature, indexed by ordinal.
+     */
+    private static final Feature[] FEATURES = Feature.values();
+
+    /**
+     * Weights for the height, lines, holes and bumpiness of a board, as tuned
+     * by Yiyuan Lee for a near-perfect one-piece player; the other features
+     * are left out.
+     */
+    public static final Heuristic DEFAULT =
+                    new Heuristic(-0.510066, 0.760666, -0.35663, -0.184483, 0, 0, 0);
+
+    /**
+     * The weight of each feature, indexed by ordinal.
+     */
+    private final double[] myWeights;
+
+    /**
+     * Creates a heuristic.
+     * 
+     * @param theWeights the weight of each Feature, in declaration order.
+     * @throws IllegalArgumentException if there is not one weight per feature.
+     */
+    public Heuristic(final double... theWeights) {
+        if (theWeights.length != FEATURES.length) {
+            throw new IllegalArgumentException("Expected " + FEATURES.length + " weights");
+        }
+        myWeights = theWeights.clone();
+    }
+
+    /**
+     * Returns the weight of a feature.
+     * 
+     * @param theFeature the feature.
+     * @return its weight.
+     */
+    public double weight(final Feature theFeature) {
+        return myWeights[theFeature.ordinal()];
+    }
+
+    /**
+     * Returns every weight, in the order of the Features.
+     * 
+     * @return a copy of the weights.
+     */
+    public double[] getWeights() {
+        return myWeights.clone();
+    }
+
+    /**
+     * Scores a board.
+     * 
+     * @param theFeatures the surface of the board after a placement.
+     * @param theLines the lines the placement cleared.
+     * @return the weighted sum of the features.
+     */
+    public double evaluate(final BoardFeatures theFeatures, final int theLines) {
+        double result = 0;
+        for (int i = 0; i < FEATURES.length; i++) {
+            if (myWeights[i] != 0) {
+                result += myWeights[i] * FEATURES[i].value(theFeatures, theLines);
+            }
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Heuristic" + Arrays.toString(myWeights);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * Chooses pieces at random but rerolls a piece that was among the last few
+ * dealt, up to a fixed number of tries, which makes droughts and repeats rare
+ * without the strict rhythm of a bag. The history starts as Z, S, Z, S so that
+ * the first pieces are unlikely to be S or Z.
+ */
+public final class HistoryGenerator implements PieceGenerator {
+
+    /**
+     * Every TetrisPiece type, indexed by ordinal.
+     */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /**
+     * Pieces remembered by the default generator.
+     */
+    private static final int DEFAULT_HISTORY = 4;
+
+    /**
+     * Rolls per piece of the default generator.
+     */
+    private static final int DEFAULT_TRIES = 4;
+
+    /**
+     * The random stream.
+     */
+    private final SplitMix myRandom;
+
+    /**
+     * The most recent pieces, oldest first.
+     */
+    private final TetrisPiece[] myHistory;
+
+    /**
+     * Most rolls made for one piece.
+     */
+    private final int myTries;
+
+    /**
+     * Creates a generator that remembers four pieces and rolls up to four
+     * times.
+     * 
+     * @param theSeed the seed.
+     */
+    public HistoryGenerator(final long theSeed) {
+        this(theSeed, DEFAULT_HISTORY, DEFAULT_TRIES);
+    }
+
+    /**
+     * Creates a generator.
+     * 
+     * @param theSeed the seed.
+     * @param theHistory number of recent pieces to avoid.
+     * @param theTries most rolls made for one piece; the last roll is kept
+     *            even if it is in the history.
+     * @throws IllegalArgumentException if theHistory or theTries is less than
+     *             one.
+     */
+    public HistoryGenerator(final long theSeed, final int theHistory, final int theTries) {
+        if (theHistory < 1 || theTries < 1) {
+            throw new IllegalArgumentException("History and tries must be positive");
+        }
+        myRandom = new SplitMix(theSeed);
+        myHistory = new TetrisPiece[theHistory];
+        myTries = theTries;
+        reset();
+    }
+
+    /**
+     * Creates a generator at the same position as another.
+     * 
+     * @param theOther the generator to copy.
+     */
+    private HistoryGenerator(final HistoryGenerator theOther) {
+        myRandom = new SplitMix(theOther.myRandom);
+        myHistory = theOther.myHistory.clone();
+        myTries = theOther.myTries;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TetrisPiece next() {
+        TetrisPiece piece = PIECES[myRandom.nextInt(PIECES.length)];
+        for (int roll = 1; roll < myTries && isRecent(piece); roll++) {
+            piece = PIECES[myRandom.nextInt(PIECES.length)];
+        }
+        System.arraycopy(myHistory, 1, myHistory, 0, myHistory.length - 1);
+        myHistory[myHistory.length - 1] = piece;
+        return piece;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        for (int i = 0; i < myHistory.length; i++) {
+            if (i % 2 == 0) {
+                myHistory[i] = TetrisPiece.Z;
+            }
+            else {
+                myHistory[i] = TetrisPiece.S;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PieceGenerator copy() {
+        return new HistoryGenerator(this);
+    }
+
+    /**
+     * Whether a piece is in the history.
+     * 
+     * @param thePiece the piece.
+     * @return True if the piece was dealt recently.
+     */
+    private boolean isRecent(final TetrisPiece thePiece) {
+        boolean result = false;
+        for (final TetrisPiece recent : myHistory) {
+            result |= recent == thePiece;
+        }
+        return result;
+    }
+}
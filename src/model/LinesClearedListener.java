@@ -0,0 +1,23 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.EventListener;
+
+/**
+ * Listens for complete lines being removed from a Board.
+ */
+public interface LinesClearedListener extends EventListener {
+
+    /**
+     * Called when a frozen piece completed one or more lines, before the
+     * matching PieceLockedListener call.
+     * 
+     * @param theLines the number of lines removed.
+     */
+    void linesCleared(int theLines);
+}
@@ -6,12 +6,12 @@
 
 package model;
 
-import java.util.Objects;
-
 /**
  * Represents a TetrisPiece with a position and a rotation.
  * 
- * A MovableTetrisPiece is immutable.
+ * A MovableTetrisPiece is immutable. Its whole state also packs into a single
+ * int, so search code can move and compare piece states without creating
+ * objects; valueOf turns a packed state back into a shared instance.
  * 
  * @author Alan Fowler
  * @version Spring 2014
@@ -23,6 +23,80 @@ public final class MovableTetrisPiece {
      */
     private static final int BLOCKS = 4;
 
+    /**
+     * Every TetrisPiece type, indexed by ordinal.
+     */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /**
+     * Every Rotation, indexed by ordinal.
+     */
+    private static final Rotation[] ROTATIONS = Rotation.values();
+
+    /**
+     * Mask of the TetrisPiece ordinal in a packed state.
+     */
+    private static final int PIECE_MASK = 0x7;
+
+    /**
+     * Position of the Rotation ordinal in a packed state.
+     */
+    private static final int ROTATION_SHIFT = 3;
+
+    /**
+     * Mask of the Rotation ordinal in a packed state, before shifting.
+     */
+    private static final int ROTATION_MASK = 0x3;
+
+    /**
+     * Position of the biased x coordinate in a packed state.
+     */
+    private static final int X_SHIFT = 5;
+
+    /**
+     * Mask of the biased x coordinate in a packed state, before shifting.
+     */
+    private static final int X_MASK = 0x1FFF;
+
+    /**
+     * Bias added to the x coordinate so that it packs as an unsigned field.
+     */
+    private static final int X_BIAS = 0x1000;
+
+    /**
+     * Position of the signed y coordinate in a packed state. The y coordinate
+     * takes all of the remaining high bits.
+     */
+    private static final int Y_SHIFT = 18;
+
+    /**
+     * Lowest y coordinate that fits in a packed state.
+     */
+    private static final int MIN_Y = Integer.MIN_VALUE >> Y_SHIFT;
+
+    /**
+     * Highest y coordinate that fits in a packed state.
+     */
+    private static final int MAX_Y = Integer.MAX_VALUE >> Y_SHIFT;
+
+    /**
+     * Number of bits in an index into the instance cache.
+     */
+    private static final int CACHE_BITS = 14;
+
+    /**
+     * Multiplier that spreads packed states over the instance cache.
+     */
+    private static final int CACHE_SPREAD = 0x9E3779B9;
+
+    /**
+     * Direct-mapped cache of shared instances, indexed by a hash of the packed
+     * state. Slots are written without synchronization; that is safe because
+     * every field of a MovableTetrisPiece is final.
+     */
+    private static final MovableTetrisPiece[] CACHE =
+                    new MovableTetrisPiece[1 << CACHE_BITS];
+
     /**
      * The TetrisPiece.
      */
@@ -38,6 +112,11 @@ public final class MovableTetrisPiece {
      */
     private final Rotation myRotation;
 
+    /**
+     * The packed state of this TetrisPiece.
+     */
+    private final int myState;
+
     /**
      * Constructor of a movable TetrisPiece.
      * 
@@ -54,6 +133,8 @@ public final class MovableTetrisPiece {
      * @param theTetrisPiece the type of TetrisPiece.
      * @param thePosition the position on the Board.
      * @param theRotation the initial angle of the TetrisPiece.
+     * @throws IllegalArgumentException if the position does not fit in a
+     *             packed state.
      */
     public MovableTetrisPiece(final TetrisPiece theTetrisPiece, final Point thePosition,
                               final Rotation theRotation) {
@@ -61,6 +142,160 @@ public final class MovableTetrisPiece {
         myTetrisPiece = theTetrisPiece;
         myPosition = thePosition;
         myRotation = theRotation;
+        myState = pack(theTetrisPiece, theRotation, thePosition.x(), thePosition.y());
+    }
+
+    /**
+     * Constructor of a movable TetrisPiece from a packed state.
+     * 
+     * @param theState the packed state.
+     */
+    private MovableTetrisPiece(final int theState) {
+        myTetrisPiece = unpackPiece(theState);
+        myPosition = new Point(unpackX(theState), unpackY(theState));
+        myRotation = unpackRotation(theState);
+        myState = theState;
+    }
+
+    // static methods on packed states
+
+    /**
+     * Returns the shared movable TetrisPiece for a packed state. Repeated calls
+     * for the same state usually return the same instance.
+     * 
+     * @param theState the packed state.
+     * @return a movable TetrisPiece with that state.
+     */
+    public static MovableTetrisPiece valueOf(final int theState) {
+        final int slot = (theState * CACHE_SPREAD) >>> (Integer.SIZE - CACHE_BITS);
+        MovableTetrisPiece piece = CACHE[slot];
+        if (piece == null || piece.myState != theState) {
+            piece = new MovableTetrisPiece(theState);
+            CACHE[slot] = piece;
+        }
+        return piece;
+    }
+
+    /**
+     * Packs a TetrisPiece, rotation and position into a single int. The x
+     * coordinate must be within -4096 to 4095 and y within -8192 to 8191.
+     * 
+     * @param theTetrisPiece the type of TetrisPiece.
+     * @param theRotation the rotation of the TetrisPiece.
+     * @param theX the board column of the TetrisPiece.
+     * @param theY the board row of the TetrisPiece.
+     * @return the packed state.
+     * @throws IllegalArgumentException if the position does not fit.
+     */
+    public static int pack(final TetrisPiece theTetrisPiece, final Rotation theRotation,
+                           final int theX, final int theY) {
+        if (theX < -X_BIAS || theX > X_MASK - X_BIAS || theY < MIN_Y || theY > MAX_Y) {
+            throw new IllegalArgumentException("Position out of range: " + theX + ", "
+                                               + theY);
+        }
+        return theY << Y_SHIFT | (theX + X_BIAS) << X_SHIFT
+               | theRotation.ordinal() << ROTATION_SHIFT | theTetrisPiece.ordinal();
+    }
+
+    /**
+     * Returns the TetrisPiece of a packed state.
+     * 
+     * @param theState the packed state.
+     * @return the TetrisPiece.
+     */
+    public static TetrisPiece unpackPiece(final int theState) {
+        return PIECES[theState & PIECE_MASK];
+    }
+
+    /**
+     * Returns the rotation of a packed state.
+     * 
+     * @param theState the packed state.
+     * @return the Rotation.
+     */
+    public static Rotation unpackRotation(final int theState) {
+        return ROTATIONS[theState >>> ROTATION_SHIFT & ROTATION_MASK];
+    }
+
+    /**
+     * Returns the board column of a packed state.
+     * 
+     * @param theState the packed state.
+     * @return the x coordinate.
+     */
+    public static int unpackX(final int theState) {
+        return (theState >>> X_SHIFT & X_MASK) - X_BIAS;
+    }
+
+    /**
+     * Returns the board row of a packed state.
+     * 
+     * @param theState the packed state.
+     * @return the y coordinate.
+     */
+    public static int unpackY(final int theState) {
+        return theState >> Y_SHIFT;
+    }
+
+    /**
+     * Moves a packed state one column to the left.
+     * 
+     * @param theState the packed state.
+     * @return the moved packed state.
+     */
+    public static int packedLeft(final int theState) {
+        return theState - (1 << X_SHIFT);
+    }
+
+    /**
+     * Moves a packed state one column to the right.
+     * 
+     * @param theState the packed state.
+     * @return the moved packed state.
+     */
+    public static int packedRight(final int theState) {
+        return theState + (1 << X_SHIFT);
+    }
+
+    /**
+     * Moves a packed state down one row.
+     * 
+     * @param theState the packed state.
+     * @return the moved packed state.
+     */
+    public static int packedDown(final int theState) {
+        return theState - (1 << Y_SHIFT);
+    }
+
+    /**
+     * Moves a packed state down by a number of rows.
+     * 
+     * @param theState the packed state.
+     * @param theRows the number of rows to move down.
+     * @return the moved packed state.
+     */
+    public static int packedDown(final int theState, final int theRows) {
+        return theState - (theRows << Y_SHIFT);
+    }
+
+    /**
+     * Rotates a packed state clockwise.
+     * 
+     * @param theState the packed state.
+     * @return the rotated packed state.
+     */
+    public static int packedRotateCW(final int theState) {
+        return withRotation(theState, (theState >>> ROTATION_SHIFT) + 1);
+    }
+
+    /**
+     * Rotates a packed state counter clockwise.
+     * 
+     * @param theState the packed state.
+     * @return the rotated packed state.
+     */
+    public static int packedRotateCCW(final int theState) {
+        return withRotation(theState, (theState >>> ROTATION_SHIFT) - 1);
     }
 
     /**
@@ -90,6 +325,15 @@ public final class MovableTetrisPiece {
         return myRotation;
     }
 
+    /**
+     * Get the packed state of this movable TetrisPiece.
+     * 
+     * @return the packed state.
+     */
+    public int getPackedState() {
+        return myState;
+    }
+
     /**
      * Get the String representation of the TetrisPiece.
      * 
@@ -123,47 +367,46 @@ public final class MovableTetrisPiece {
     /**
      * Rotates the TetrisPiece clockwise.
      * 
-     * @return A new rotated movable TetrisPiece
+     * @return The rotated movable TetrisPiece
      */
     public MovableTetrisPiece rotateCW() {
-        return new MovableTetrisPiece(myTetrisPiece, myPosition, myRotation.clockwise());
+        return valueOf(packedRotateCW(myState));
     }
 
     /**
      * Rotates the TetrisPiece counter clockwise.
      * 
-     * @return A new rotated movable TetrisPiece
+     * @return The rotated movable TetrisPiece
      */
     public MovableTetrisPiece rotateCCW() {
-        return new MovableTetrisPiece(myTetrisPiece, myPosition,
-                                      myRotation.counterClockwise());
+        return valueOf(packedRotateCCW(myState));
     }
 
     /**
      * Moves the TetrisPiece to the left on the game board.
      * 
-     * @return A new left moved movable TetrisPiece
+     * @return The left moved movable TetrisPiece
      */
     public MovableTetrisPiece left() {
-        return new MovableTetrisPiece(myTetrisPiece, myPosition.transform(-1, 0), myRotation);
+        return valueOf(packedLeft(myState));
     }
 
     /**
      * Moves the TetrisPiece to the right on the game board.
      * 
-     * @return A new right moved movable TetrisPiece
+     * @return The right moved movable TetrisPiece
      */
     public MovableTetrisPiece right() {
-        return new MovableTetrisPiece(myTetrisPiece, myPosition.transform(1, 0), myRotation);
+        return valueOf(packedRight(myState));
     }
 
     /**
      * Moves the TetrisPiece down on the game board.
      * 
-     * @return A new movable TetrisPiece moved down.
+     * @return The movable TetrisPiece moved down.
      */
     public MovableTetrisPiece down() {
-        return new MovableTetrisPiece(myTetrisPiece, myPosition.transform(0, -1), myRotation);
+        return valueOf(packedDown(myState));
     }
 
     /**
@@ -172,7 +415,7 @@ public final class MovableTetrisPiece {
      * @return array of TetrisPiece block points.
      */
     public Point[] getLocalPoints() {
-        return getPoints(null);
+        return myTetrisPiece.points(myRotation);
     }
 
     /**
@@ -181,51 +424,42 @@ public final class MovableTetrisPiece {
      * @return the board points for the TetrisPiece blocks.
      */
     public Point[] getBoardPoints() {
-        return getPoints(myPosition);
+        final Point[] blocks = new Point[myTetrisPiece.blocks()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new Point(myPosition.x() + myTetrisPiece.offsetX(myRotation, i),
+                                  myPosition.y() + myTetrisPiece.offsetY(myRotation, i));
+        }
+        return blocks;
     }
 
-    // private methods
-
     /**
-     * Get the block points of the TetrisPiece transformed by x and y.
+     * Writes the board coordinates of the TetrisPiece blocks into a buffer as
+     * x0, y0, x1, y1 and so on, without allocating.
      * 
-     * @param thePoint the point to transform the points around.
-     * @return array of TetrisPiece block points.
+     * @param theCoordinates buffer of at least twice as many ints as there are
+     *            blocks in the TetrisPiece.
+     * @return the number of blocks written.
      */
-    private Point[] getPoints(final Point thePoint) {
-
-        final Point[] blocks = myTetrisPiece.points();
-
-        for (int i = 0; i < blocks.length; i++) {
-            final Point block = blocks[i];
-            if (myTetrisPiece != TetrisPiece.O) {
-                switch (myRotation) {
-                    case QUARTER:
-                        blocks[i] = new Point(block.y(),
-                                              myTetrisPiece.width() - block.x() - 1);
-
-                        break;
-                    case HALF:
-                        blocks[i] = new Point(myTetrisPiece.width() - block.x() - 1,
-                                              myTetrisPiece.width() - block.y() - 1);
-
-                        break;
-                    case THREEQUARTER:
-                        blocks[i] = new Point(myTetrisPiece.width() - block.y() - 1,
-                                              block.x());
-
-                        break;
-                    default:
-                }
-            }
-            if (thePoint != null) {
-                blocks[i] = blocks[i].transform(thePoint);
-            }
+    public int getBoardCoordinates(final int[] theCoordinates) {
+        final int blocks = myTetrisPiece.blocks();
+        for (int i = 0; i < blocks; i++) {
+            theCoordinates[2 * i] = myPosition.x() + myTetrisPiece.offsetX(myRotation, i);
+            theCoordinates[2 * i + 1] = myPosition.y() + myTetrisPiece.offsetY(myRotation, i);
         }
-
         return blocks;
     }
 
+    /**
+     * Gets the precomputed occupancy mask of one local row of the rotated
+     * TetrisPiece. Bit x is set when local column x of that row is filled.
+     * 
+     * @param theRow the local row, from 0 to 3.
+     * @return the occupancy mask of the row.
+     */
+    public long getRowMask(final int theRow) {
+        return myTetrisPiece.rowMask(myRotation, theRow);
+    }
+
     /**
      * Gets the height of the TetrisPiece based on current rotation.
      * 
@@ -274,10 +508,7 @@ public final class MovableTetrisPiece {
             match = true;
         }
         else if (theOther != null && theOther.getClass() == getClass()) {
-            final MovableTetrisPiece p = (MovableTetrisPiece) theOther;
-            match = Objects.equals(myTetrisPiece, p.myTetrisPiece)
-                    && Objects.equals(myRotation, p.myRotation)
-                    && Objects.equals(myPosition, p.myPosition);
+            match = myState == ((MovableTetrisPiece) theOther).myState;
         }
         return match;
     }
@@ -285,10 +516,22 @@ public final class MovableTetrisPiece {
     /**
      * Override of the hash code method.
      * 
-     * @return Integer has of toString.
+     * @return the packed state.
      */
     @Override
     public int hashCode() {
-        return Objects.hash(myTetrisPiece, myPosition, myRotation);
+        return myState;
+    }
+
+    /**
+     * Replaces the rotation of a packed state.
+     * 
+     * @param theState the packed state.
+     * @param theRotation the new rotation ordinal, taken modulo four.
+     * @return the packed state with the new rotation.
+     */
+    private static int withRotation(final int theState, final int theRotation) {
+        return theState & ~(ROTATION_MASK << ROTATION_SHIFT)
+               | (theRotation & ROTATION_MASK) << ROTATION_SHIFT;
     }
 }
@@ -0,0 +1,22 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.EventListener;
+
+/**
+ * Listens for the next piece of a Board changing.
+ */
+public interface NextPieceListener extends EventListener {
+
+    /**
+     * Called when a new piece is chosen to follow the current one.
+     * 
+     * @param thePiece the piece that plays next.
+     */
+    void nextPiece(TetrisPiece thePiece);
+}
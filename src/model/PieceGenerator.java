@@ -0,0 +1,40 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * Chooses the sequence of pieces for a Board. Each board owns its own
+ * generator, so boards running on different threads never share state, and a
+ * seeded generator plays the same pieces every time.
+ * 
+ * Generators are not thread safe; a generator belongs to one board at a time.
+ */
+public interface PieceGenerator {
+
+    /**
+     * Returns the next piece of the sequence.
+     * 
+     * @return the next piece.
+     */
+    TetrisPiece next();
+
+    /**
+     * Prepares for a new game. A fixed sequence starts over; a random
+     * generator forgets any bag or history but carries on with its random
+     * stream, so that each game of a seeded board is different but repeatable.
+     */
+    void reset();
+
+    /**
+     * Returns an independent generator at the same position in the same
+     * sequence, which produces the same pieces as this one from here on.
+     * Boards copy their generator into each snapshot.
+     * 
+     * @return a copy of this generator.
+     */
+    PieceGenerator copy();
+}
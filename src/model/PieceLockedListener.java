@@ -0,0 +1,24 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.EventListener;
+
+/**
+ * Listens for the current piece of a Board freezing into place. Each lock is
+ * also sent to the PieceMovedListeners of the board, before this one.
+ */
+public interface PieceLockedListener extends EventListener {
+
+    /**
+     * Called after the current piece froze, any complete rows were removed and
+     * the next piece entered the board.
+     * 
+     * @param theData the change to the drawn board.
+     */
+    void pieceLocked(BoardData theData);
+}
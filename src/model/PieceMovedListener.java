@@ -0,0 +1,28 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.EventListener;
+
+/**
+ * Listens for every change to the drawn board of a Board: moves of the current
+ * piece, pieces freezing into place and full refreshes. A listener that keeps
+ * its own grid with BoardData.applyTo must see every change, so it listens
+ * here rather than for locks.
+ */
+public interface PieceMovedListener extends EventListener {
+
+    /**
+     * Called after the current piece moved or rotated; after it froze, any
+     * complete rows were removed and the next piece entered the board, when
+     * theData.isLock() is true; and after the whole board changed at once, as
+     * on a new game or a restore, when theData.isFullRefresh() is true.
+     * 
+     * @param theData the change to the drawn board.
+     */
+    void pieceMoved(BoardData theData);
+}
@@ -0,0 +1,124 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * Where the current piece of a Board should go and how to get it there: turn
+ * it clockwise some number of times, shift it sideways some number of columns,
+ * then drop it.
+ */
+public final class Placement {
+
+    /**
+     * Packed state of the piece where it lands.
+     */
+    private final int myState;
+
+    /**
+     * Clockwise turns before the shift.
+     */
+    private final int myRotations;
+
+    /**
+     * Columns to shift, negative for left.
+     */
+    private final int myShift;
+
+    /**
+     * Lines the placement clears.
+     */
+    private final int myLines;
+
+    /**
+     * Score of the placement, including any lookahead.
+     */
+    private final double myScore;
+
+    /**
+     * Creates a placement.
+     * 
+     * @param theState packed state of the piece where it lands.
+     * @param theRotations clockwise turns before the shift.
+     * @param theShift columns to shift, negative for left.
+     * @param theLines lines the placement clears.
+     * @param theScore score of the placement.
+     */
+    Placement(final int theState, final int theRotations, final int theShift,
+              final int theLines, final double theScore) {
+        myState = theState;
+        myRotations = theRotations;
+        myShift = theShift;
+        myLines = theLines;
+        myScore = theScore;
+    }
+
+    /**
+     * Returns this placement with another score.
+     * 
+     * @param theScore the new score.
+     * @return a placement that differs only in its score.
+     */
+    Placement withScore(final double theScore) {
+        return new Placement(myState, myRotations, myShift, myLines, theScore);
+    }
+
+    /**
+     * Returns the packed state of the piece where it lands. See
+     * MovableTetrisPiece.pack for the encoding.
+     * 
+     * @return the packed landing state.
+     */
+    public int getState() {
+        return myState;
+    }
+
+    /**
+     * Returns how many times to turn the piece clockwise, first.
+     * 
+     * @return the turns, from 0 to 3.
+     */
+    public int getRotations() {
+        return myRotations;
+    }
+
+    /**
+     * Returns how many columns to shift the piece after turning it.
+     * 
+     * @return the columns to shift; negative to the left, positive to the
+     *         right.
+     */
+    public int getShift() {
+        return myShift;
+    }
+
+    /**
+     * Returns the lines the placement clears.
+     * 
+     * @return the line count.
+     */
+    public int getLines() {
+        return myLines;
+    }
+
+    /**
+     * Returns the score of the placement, including the best placement of the
+     * next piece when the search looked ahead. Placements that top out score
+     * negative infinity.
+     * 
+     * @return the score.
+     */
+    public double getScore() {
+        return myScore;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Placement[" + MovableTetrisPiece.valueOf(myState) + ", rotations="
+               + myRotations + ", shift=" + myShift + ", score=" + myScore + ']';
+    }
+}
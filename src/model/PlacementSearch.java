@@ -0,0 +1,329 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the best place for the current piece of a Board.
+ * 
+ * Every reachable final placement is tried: the piece is turned clockwise
+ * zero to three times where it is, shifted to every column it can reach, and
+ * dropped, following the collision rules of the board. Each placement is
+ * frozen into a copy-on-write snapshot of the grid, complete lines are
+ * removed, and the board that results is scored by a Heuristic from its
+ * BoardFeatures, so a placement costs a few row copies and no full scan.
+ * 
+ * The best placements form a beam, and each is scored again by the best
+ * placement of the next piece on top of it. The beam can be searched in
+ * parallel on an executor; a search is otherwise single threaded, and one
+ * search object must not run two searches at once.
+ * 
+ * With a TranspositionTable, the score of each placement is stored under the
+ * Zobrist hash of the grid with the piece where it lands, and the lookahead
+ * score under the hash of the grid with the next piece where it enters. The
+ * lookahead of one move places the same pieces on the same grids as the first
+ * ply of the move after it, so those placements are found in the table
+ * instead of frozen again.
+ */
+public final class PlacementSearch {
+
+    /**
+     * Placements looked ahead from by default.
+     */
+    public static final int DEFAULT_BEAM = 8;
+
+    /**
+     * Clockwise turns that bring a piece back to where it started.
+     */
+    private static final int TURNS = Rotation.values().length;
+
+    /**
+     * Most rows one piece can complete.
+     */
+    private static final int MAX_CLEARED = 4;
+
+    /**
+     * Orders placements from the best score down.
+     */
+    private static final Comparator<Placement> BEST_FIRST = new Comparator<Placement>() {
+        @Override
+        public int compare(final Placement theFirst, final Placement theSecond) {
+            return Double.compare(theSecond.getScore(), theFirst.getScore());
+        }
+    };
+
+    /**
+     * Scores the boards.
+     */
+    private final Heuristic myHeuristic;
+
+    /**
+     * Placements looked ahead from.
+     */
+    private final int myBeam;
+
+    /**
+     * Executor for the lookahead, or null to look ahead on the calling thread.
+     */
+    private final ExecutorService myExecutor;
+
+    /**
+     * Placements scored since this search was created.
+     */
+    private final AtomicLong myEvaluated;
+
+    /**
+     * Scores of positions already searched, or null.
+     */
+    private final TranspositionTable myTable;
+
+    /**
+     * Creates a single threaded search with the default beam.
+     * 
+     * @param theHeuristic scores the boards.
+     */
+    public PlacementSearch(final Heuristic theHeuristic) {
+        this(theHeuristic, DEFAULT_BEAM, null);
+    }
+
+    /**
+     * Creates a search.
+     * 
+     * @param theHeuristic scores the boards.
+     * @param theBeam placements to look ahead from, or zero not to look ahead.
+     * @param theExecutor executor that looks ahead from the placements of the
+     *            beam in parallel, or null to use the calling thread.
+     * @throws IllegalArgumentException if theBeam is negative.
+     */
+    public PlacementSearch(final Heuristic theHeuristic, final int theBeam,
+                           final ExecutorService theExecutor) {
+        this(theHeuristic, theBeam, theExecutor, null);
+    }
+
+    /**
+     * Creates a search that keeps the scores it finds in a table.
+     * 
+     * @param theHeuristic scores the boards.
+     * @param theBeam placements to look ahead from, or zero not to look ahead.
+     * @param theExecutor executor that looks ahead from the placements of the
+     *            beam in parallel, or null to use the calling thread.
+     * @param theTable table of scores already found, or null; it may be shared
+     *            only with searches that use the same heuristic.
+     * @throws IllegalArgumentException if theBeam is negative.
+     */
+    public PlacementSearch(final Heuristic theHeuristic, final int theBeam,
+                           final ExecutorService theExecutor,
+                           final TranspositionTable theTable) {
+        if (theBeam < 0) {
+            throw new IllegalArgumentException("The beam must not be negative");
+        }
+        myHeuristic = theHeuristic;
+        myBeam = theBeam;
+        myExecutor = theExecutor;
+        myEvaluated = new AtomicLong();
+        myTable = theTable;
+    }
+
+    /**
+     * Finds the best placement for the current piece of a board. The board is
+     * not changed.
+     * 
+     * @param theBoard a board that has been cleared at least once.
+     * @return the best placement, or null if the piece cannot move at all.
+     * @throws IllegalStateException if the lookahead fails on the executor or
+     *             the calling thread is interrupted while waiting for it.
+     */
+    public Placement search(final Board theBoard) {
+        if (myTable != null) {
+            myTable.newGeneration();
+        }
+        final BoardGrid grid = theBoard.getGrid().snapshot();
+        final List<Placement> placements = placements(grid, theBoard.getPieceState(),
+                                                      grid.snapshot());
+        Collections.sort(placements, BEST_FIRST);
+        Placement result = null;
+        if (!placements.isEmpty()) {
+            result = placements.get(0);
+            final int beam = Math.min(myBeam, placements.size());
+            if (beam > 0 && theBoard.getNextPiece() != null) {
+                final int next = theBoard.spawnState(theBoard.getNextPiece());
+                final List<BoardGrid> after = new ArrayList<BoardGrid>();
+                for (final Placement placement : placements.subList(0, beam)) {
+                    final BoardGrid grown = grid.snapshot();
+                    grown.freeze(placement.getState());
+                    grown.clearRows(placement.getState(), new int[MAX_CLEARED]);
+                    after.add(grown);
+                }
+                result = Collections.min(lookAhead(placements.subList(0, beam), after, next),
+                                         BEST_FIRST);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the heuristic the boards are scored with.
+     * 
+     * @return the heuristic.
+     */
+    public Heuristic getHeuristic() {
+        return myHeuristic;
+    }
+
+    /**
+     * Returns the number of placements scored since this search was created,
+     * counting those of the lookahead, for measuring throughput.
+     * 
+     * @return the placement count.
+     */
+    public long getEvaluated() {
+        return myEvaluated.get();
+    }
+
+    /**
+     * Scores the placements of the beam again, in parallel if there is an
+     * executor.
+     * 
+     * @param theBeam the placements of the beam.
+     * @param theAfter the grid after each placement.
+     * @param theNext packed spawn state of the next piece.
+     * @return the placements with their new scores, in the same order.
+     * @throws IllegalStateException if a task fails or the calling thread is
+     *             interrupted while waiting.
+     */
+    private List<Placement> lookAhead(final List<Placement> theBeam,
+                                      final List<BoardGrid> theAfter, final int theNext) {
+        final List<Placement> result = new ArrayList<Placement>();
+        if (myExecutor == null) {
+            for (int i = 0; i < theBeam.size(); i++) {
+                result.add(lookAhead(theBeam.get(i), theAfter.get(i), theNext));
+            }
+        }
+        else {
+            final List<Callable<Placement>> tasks = new ArrayList<Callable<Placement>>();
+            for (int i = 0; i < theBeam.size(); i++) {
+                final Placement placement = theBeam.get(i);
+                final BoardGrid after = theAfter.get(i);
+                tasks.add(new Callable<Placement>() {
+                    @Override
+                    public Placement call() {
+                        return lookAhead(placement, after, theNext);
+                    }
+                });
+            }
+            try {
+                for (final Future<Placement> future : myExecutor.invokeAll(tasks)) {
+                    result.add(future.get());
+                }
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while looking ahead", e);
+            }
+            catch (final ExecutionException e) {
+                throw new IllegalStateException("Looking ahead failed", e.getCause());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scores a placement again by the best placement of the next piece after
+     * it.
+     * 
+     * @param thePlacement a placement of the current piece that does not top
+     *            out.
+     * @param theAfter the grid after the placement.
+     * @param theNext packed spawn state of the next piece.
+     * @return the placement with the score of the best board two pieces on.
+     */
+    private Placement lookAhead(final Placement thePlacement, final BoardGrid theAfter,
+                                final int theNext) {
+        double best = Double.NEGATIVE_INFINITY;
+        if (thePlacement.getScore() != Double.NEGATIVE_INFINITY) {
+            final long key = theAfter.hash() ^ Zobrist.piece(theNext);
+            final TranspositionTable.Hit hit = new TranspositionTable.Hit();
+            if (myTable != null && myTable.probe(key, hit) && hit.getDepth() > 0) {
+                best = hit.getScore();
+            }
+            else {
+                int move = theNext;
+                for (final Placement next : placements(theAfter, theNext,
+                                                       theAfter.snapshot())) {
+                    if (next.getScore() > best) {
+                        best = next.getScore();
+                        move = next.getState();
+                    }
+                }
+                if (myTable != null) {
+                    myTable.store(key, best, 1, move);
+                }
+            }
+        }
+        return thePlacement.withScore(best);
+    }
+
+    /**
+     * Lists and scores every reachable placement of a piece.
+     * 
+     * @param theGrid the grid to place on; it is not changed.
+     * @param theState packed state the piece starts from.
+     * @param theScratch a grid of the same size to freeze placements into.
+     * @return the placements, in search order.
+     */
+    private List<Placement> placements(final BoardGrid theGrid, final int theState,
+                                       final BoardGrid theScratch) {
+        final List<Placement> result = new ArrayList<Placement>();
+        final int[] cleared = new int[MAX_CLEARED];
+        final TranspositionTable.Hit hit = new TranspositionTable.Hit();
+        final int startX = MovableTetrisPiece.unpackX(theState);
+        int turned = theState;
+        for (int turns = 0; turns < TURNS && theGrid.isLegal(turned); turns++) {
+            int state = turned;
+            while (theGrid.isLegal(MovableTetrisPiece.packedLeft(state))) {
+                state = MovableTetrisPiece.packedLeft(state);
+            }
+            while (theGrid.isLegal(state)) {
+                final int landing = MovableTetrisPiece.packedDown(state,
+                                                                  theGrid.dropDistance(state));
+                final long key = theGrid.hash() ^ Zobrist.piece(landing);
+                final int lines;
+                double score = Double.NEGATIVE_INFINITY;
+                if (myTable != null && myTable.probe(key, hit) && hit.getDepth() == 0) {
+                    lines = theGrid.completedRows(landing);
+                    score = hit.getScore();
+                }
+                else {
+                    theScratch.restore(theGrid);
+                    final boolean inside = theScratch.freeze(landing);
+                    lines = theScratch.clearRows(landing, cleared);
+                    if (inside) {
+                        score = myHeuristic.evaluate(theScratch.features(), lines);
+                    }
+                    if (myTable != null) {
+                        myTable.store(key, score, 0, landing);
+                    }
+                }
+                final int shift = MovableTetrisPiece.unpackX(state) - startX;
+                result.add(new Placement(landing, turns, shift, lines, score));
+                state = MovableTetrisPiece.packedRight(state);
+            }
+            turned = MovableTetrisPiece.packedRotateCW(turned);
+        }
+        myEvaluated.addAndGet(result.size());
+        return result;
+    }
+}
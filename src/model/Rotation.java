@@ -6,7 +6,7 @@
 
 package model;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Enumeration of Rotation types.
@@ -36,11 +36,6 @@ public enum Rotation {
      */
     THREEQUARTER;
 
-    /**
-     * A Random object used for generating random rotations.
-     */
-    private static final Random RANDOM = new Random();
-
     /**
      * Create a new Rotation from this one rotated clockwise.
      * 
@@ -65,7 +60,7 @@ public enum Rotation {
      * @return new random Rotation.
      */
     public static Rotation random() {
-        return values()[RANDOM.nextInt(values().length)];
+        return values()[ThreadLocalRandom.current().nextInt(values().length)];
     }
 
 }
@@ -0,0 +1,70 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Deals a fixed list of pieces in order, starting over at the end of the list
+ * and at each new game.
+ */
+public final class SequenceGenerator implements PieceGenerator {
+
+    /**
+     * The pieces, shared by copies.
+     */
+    private final List<TetrisPiece> myPieces;
+
+    /**
+     * Index of the next piece.
+     */
+    private int myIndex;
+
+    /**
+     * Creates a generator.
+     * 
+     * @param thePieces the pieces to deal; the list is copied.
+     * @throws IllegalArgumentException if thePieces is empty.
+     */
+    public SequenceGenerator(final List<TetrisPiece> thePieces) {
+        if (thePieces.isEmpty()) {
+            throw new IllegalArgumentException("The sequence needs at least one piece");
+        }
+        myPieces = Collections.unmodifiableList(new ArrayList<TetrisPiece>(thePieces));
+    }
+
+    /**
+     * Creates a generator at the same position as another.
+     * 
+     * @param theOther the generator to copy.
+     */
+    private SequenceGenerator(final SequenceGenerator theOther) {
+        myPieces = theOther.myPieces;
+        myIndex = theOther.myIndex;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TetrisPiece next() {
+        myIndex %= myPieces.size();
+        return myPieces.get(myIndex++);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        myIndex = 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PieceGenerator copy() {
+        return new SequenceGenerator(this);
+    }
+}
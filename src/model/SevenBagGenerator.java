@@ -0,0 +1,83 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * Deals the seven piece types from a shuffled bag, refilling the bag once it
+ * is empty, so every type appears once in each run of seven pieces.
+ */
+public final class SevenBagGenerator implements PieceGenerator {
+
+    /**
+     * Every TetrisPiece type, indexed by ordinal.
+     */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /**
+     * The random stream.
+     */
+    private final SplitMix myRandom;
+
+    /**
+     * The bag; the pieces not yet dealt are the first myRemaining entries.
+     */
+    private final TetrisPiece[] myBag;
+
+    /**
+     * Number of pieces left in the bag.
+     */
+    private int myRemaining;
+
+    /**
+     * Creates a generator with a seed.
+     * 
+     * @param theSeed the seed.
+     */
+    public SevenBagGenerator(final long theSeed) {
+        myRandom = new SplitMix(theSeed);
+        myBag = PIECES.clone();
+    }
+
+    /**
+     * Creates a generator at the same position as another.
+     * 
+     * @param theOther the generator to copy.
+     */
+    private SevenBagGenerator(final SevenBagGenerator theOther) {
+        myRandom = new SplitMix(theOther.myRandom);
+        myBag = theOther.myBag.clone();
+        myRemaining = theOther.myRemaining;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TetrisPiece next() {
+        if (myRemaining == 0) {
+            System.arraycopy(PIECES, 0, myBag, 0, PIECES.length);
+            myRemaining = PIECES.length;
+        }
+        // one step of a Fisher-Yates shuffle: move a random piece to the end
+        final int pick = myRandom.nextInt(myRemaining);
+        myRemaining--;
+        final TetrisPiece piece = myBag[pick];
+        myBag[pick] = myBag[myRemaining];
+        myBag[myRemaining] = piece;
+        return piece;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        myRemaining = 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PieceGenerator copy() {
+        return new SevenBagGenerator(this);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * The random stream of a seeded PieceGenerator. This is the SplitMix64
+ * algorithm of java.util.SplittableRandom, and gives the same numbers as a
+ * SplittableRandom made with the same seed, but its whole state is one long
+ * so that it can be copied into a snapshot; SplittableRandom offers no way to
+ * copy its position.
+ */
+final class SplitMix {
+
+    /**
+     * Increment of the seed for each number, as in SplittableRandom.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * First multiplier of the 32 bit mix.
+     */
+    private static final long MIX_1 = 0x62a9d9ed799705f5L;
+
+    /**
+     * Second multiplier of the 32 bit mix.
+     */
+    private static final long MIX_2 = 0xcb24d0a5c88c35b3L;
+
+    /**
+     * First shift of the 32 bit mix.
+     */
+    private static final int SHIFT_1 = 33;
+
+    /**
+     * Second shift of the 32 bit mix.
+     */
+    private static final int SHIFT_2 = 28;
+
+    /**
+     * The current seed.
+     */
+    private long mySeed;
+
+    /**
+     * Creates a stream from a seed.
+     * 
+     * @param theSeed the seed.
+     */
+    SplitMix(final long theSeed) {
+        mySeed = theSeed;
+    }
+
+    /**
+     * Creates a stream at the same position as another.
+     * 
+     * @param theOther the stream to copy.
+     */
+    SplitMix(final SplitMix theOther) {
+        mySeed = theOther.mySeed;
+    }
+
+    /**
+     * Returns a uniformly chosen int from zero up to a bound.
+     * 
+     * @param theBound the exclusive upper bound; must be positive.
+     * @return a number from 0 to theBound - 1.
+     */
+    int nextInt(final int theBound) {
+        int result = mix32(nextSeed());
+        final int mask = theBound - 1;
+        if ((theBound & mask) == 0) {
+            result &= mask;
+        }
+        else {
+            // reject the top values that would favour the low results
+            int bits = result >>> 1;
+            result = bits % theBound;
+            while (bits + mask - result < 0) {
+                bits = mix32(nextSeed()) >>> 1;
+                result = bits % theBound;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Advances the seed.
+     * 
+     * @return the new seed.
+     */
+    private long nextSeed() {
+        mySeed += GOLDEN_GAMMA;
+        return mySeed;
+    }
+
+    /**
+     * Mixes a seed into 32 random bits.
+     * 
+     * @param theSeed the seed.
+     * @return the mixed bits.
+     */
+    private static int mix32(final long theSeed) {
+        long z = (theSeed ^ (theSeed >>> SHIFT_1)) * MIX_1;
+        z = (z ^ (z >>> SHIFT_2)) * MIX_2;
+        return (int) (z >>> Integer.SIZE);
+    }
+}
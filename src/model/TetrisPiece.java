@@ -7,7 +7,7 @@
 package model;
 
 import java.awt.Color;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Enumeration of the TetrisPiece types.
@@ -56,9 +56,83 @@ public enum TetrisPiece {
     // Other class constants
 
     /**
-     * A Random Object.
+     * Number of blocks in every TetrisPiece.
      */
-    private static final Random RANDOM = new Random();
+    private static final int BLOCKS = 4;
+
+    /**
+     * Size of the local grid that holds any rotated TetrisPiece.
+     */
+    private static final int SHAPE_SIZE = 4;
+
+    /**
+     * Every Rotation, indexed by ordinal.
+     */
+    private static final Rotation[] ROTATIONS = Rotation.values();
+
+    /**
+     * Number of piece and rotation pairs.
+     */
+    private static final int SHAPES = values().length * ROTATIONS.length;
+
+    /**
+     * Rotated local Points of every piece and rotation, indexed by shape.
+     */
+    private static final Point[][] SHAPE_POINTS = new Point[SHAPES][];
+
+    /**
+     * Rotated local block coordinates of every piece and rotation, indexed by
+     * shape and then stored as x0, y0, x1, y1 and so on.
+     */
+    private static final int[][] SHAPE_OFFSETS = new int[SHAPES][BLOCKS * 2];
+
+    /**
+     * Occupancy mask of each local row of every piece and rotation, indexed by
+     * shape and then by local row. Bit x is set when local column x is filled.
+     */
+    private static final long[][] SHAPE_ROWS = new long[SHAPES][SHAPE_SIZE];
+
+    /**
+     * Lowest local column of every piece and rotation.
+     */
+    private static final int[] SHAPE_MIN_X = new int[SHAPES];
+
+    /**
+     * Highest local column of every piece and rotation.
+     */
+    private static final int[] SHAPE_MAX_X = new int[SHAPES];
+
+    /**
+     * Lowest local row of every piece and rotation.
+     */
+    private static final int[] SHAPE_MIN_Y = new int[SHAPES];
+
+    /**
+     * Highest local row of every piece and rotation.
+     */
+    private static final int[] SHAPE_MAX_Y = new int[SHAPES];
+
+    static {
+        for (final TetrisPiece piece : values()) {
+            for (final Rotation rotation : ROTATIONS) {
+                final int shape = piece.shape(rotation);
+                final Point[] points = piece.rotate(rotation);
+                SHAPE_POINTS[shape] = points;
+                SHAPE_MIN_X[shape] = SHAPE_SIZE;
+                SHAPE_MIN_Y[shape] = SHAPE_SIZE;
+                for (int i = 0; i < points.length; i++) {
+                    final Point p = points[i];
+                    SHAPE_OFFSETS[shape][2 * i] = p.x();
+                    SHAPE_OFFSETS[shape][2 * i + 1] = p.y();
+                    SHAPE_ROWS[shape][p.y()] |= 1L << p.x();
+                    SHAPE_MIN_X[shape] = Math.min(SHAPE_MIN_X[shape], p.x());
+                    SHAPE_MAX_X[shape] = Math.max(SHAPE_MAX_X[shape], p.x());
+                    SHAPE_MIN_Y[shape] = Math.min(SHAPE_MIN_Y[shape], p.y());
+                    SHAPE_MAX_Y[shape] = Math.max(SHAPE_MAX_Y[shape], p.y());
+                }
+            }
+        }
+    }
 
     // instance fields
     /**
@@ -106,6 +180,99 @@ public enum TetrisPiece {
         return myPoints.clone();
     }
 
+    /**
+     * Returns the Points of the TetrisPiece in the given rotation.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @return the rotated local Points of the TetrisPiece.
+     */
+    public Point[] points(final Rotation theRotation) {
+        return SHAPE_POINTS[shape(theRotation)].clone();
+    }
+
+    /**
+     * Returns the number of blocks in the TetrisPiece.
+     * 
+     * @return the number of blocks.
+     */
+    public int blocks() {
+        return BLOCKS;
+    }
+
+    /**
+     * Returns the local x coordinate of a block in the given rotation.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @param theBlock index of the block, from 0 to blocks() - 1.
+     * @return the local x coordinate of the block.
+     */
+    public int offsetX(final Rotation theRotation, final int theBlock) {
+        return SHAPE_OFFSETS[shape(theRotation)][2 * theBlock];
+    }
+
+    /**
+     * Returns the local y coordinate of a block in the given rotation.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @param theBlock index of the block, from 0 to blocks() - 1.
+     * @return the local y coordinate of the block.
+     */
+    public int offsetY(final Rotation theRotation, final int theBlock) {
+        return SHAPE_OFFSETS[shape(theRotation)][2 * theBlock + 1];
+    }
+
+    /**
+     * Returns the occupancy mask of one local row in the given rotation. Bit x
+     * is set when local column x of that row is filled.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @param theRow the local row, from 0 to 3.
+     * @return the occupancy mask of the row.
+     */
+    public long rowMask(final Rotation theRotation, final int theRow) {
+        return SHAPE_ROWS[shape(theRotation)][theRow];
+    }
+
+    /**
+     * Returns the lowest local column filled in the given rotation.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @return the lowest filled local column.
+     */
+    public int minX(final Rotation theRotation) {
+        return SHAPE_MIN_X[shape(theRotation)];
+    }
+
+    /**
+     * Returns the highest local column filled in the given rotation.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @return the highest filled local column.
+     */
+    public int maxX(final Rotation theRotation) {
+        return SHAPE_MAX_X[shape(theRotation)];
+    }
+
+    /**
+     * Returns the lowest local row filled in the given rotation.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @return the lowest filled local row.
+     */
+    public int minY(final Rotation theRotation) {
+        return SHAPE_MIN_Y[shape(theRotation)];
+    }
+
+    /**
+     * Returns the highest local row filled in the given rotation.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @return the highest filled local row.
+     */
+    public int maxY(final Rotation theRotation) {
+        return SHAPE_MAX_Y[shape(theRotation)];
+    }
+
     /**
      * Return the width of the TetrisPiece.
      * 
@@ -134,11 +301,52 @@ public enum TetrisPiece {
     }
 
     /**
-     * Get a random TetrisPiece.
+     * Get a random TetrisPiece from the random generator of the calling
+     * thread. Boards choose their pieces with their own PieceGenerator.
      * 
      * @return a random TetrisPiece.
      */
     public static TetrisPiece random() {
-        return values()[RANDOM.nextInt(values().length)];
+        return values()[ThreadLocalRandom.current().nextInt(values().length)];
+    }
+
+    /**
+     * Index of this TetrisPiece and a rotation into the shape tables.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @return the shape index.
+     */
+    private int shape(final Rotation theRotation) {
+        return ordinal() * ROTATIONS.length + theRotation.ordinal();
+    }
+
+    /**
+     * Computes the local Points of this TetrisPiece in the given rotation. The
+     * O piece looks the same in every rotation.
+     * 
+     * @param theRotation the rotation of the TetrisPiece.
+     * @return the rotated local Points.
+     */
+    private Point[] rotate(final Rotation theRotation) {
+        final Point[] blocks = myPoints.clone();
+        if (this != O) {
+            for (int i = 0; i < blocks.length; i++) {
+                final Point block = blocks[i];
+                switch (theRotation) {
+                    case QUARTER:
+                        blocks[i] = new Point(block.y(), myWidth - block.x() - 1);
+                        break;
+                    case HALF:
+                        blocks[i] = new Point(myWidth - block.x() - 1,
+                                              myWidth - block.y() - 1);
+                        break;
+                    case THREEQUARTER:
+                        blocks[i] = new Point(myWidth - block.y() - 1, block.x());
+                        break;
+                    default:
+                }
+            }
+        }
+        return blocks;
     }
 }
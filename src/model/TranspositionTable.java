@@ -0,0 +1,256 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed-size table of search results keyed by position hash, such as
+ * Board.stateHash(), so that a position reached again, by another order of
+ * moves or by a later search, is not searched again.
+ * 
+ * Each entry holds a score, the depth it was searched to and the best move as
+ * a packed piece state, in three words of one long array: a check word, a data
+ * word and the score. The table never grows; it holds a power of two entries
+ * in buckets of two, so its memory is fixed when it is created.
+ * 
+ * A new entry replaces, in order of preference, an empty slot, a slot from an
+ * earlier generation, or the slot searched to the least depth. The same
+ * position is replaced only by a search at least as deep, or by any search of
+ * a later generation. Call newGeneration before each search so old entries
+ * age out.
+ * 
+ * Threads read and write the table at once without locks. The check word is
+ * the key XORed with the other two words, so an entry torn by two threads
+ * writing at once no longer matches its key and reads as a miss.
+ */
+public final class TranspositionTable {
+
+    /**
+     * Longs per entry: the check word, the data word and the score.
+     */
+    private static final int WORDS = 3;
+
+    /**
+     * Entries per bucket.
+     */
+    private static final int BUCKET = 2;
+
+    /**
+     * Position of the depth in a data word.
+     */
+    private static final int DEPTH_SHIFT = 32;
+
+    /**
+     * Position of the generation in a data word.
+     */
+    private static final int AGE_SHIFT = 48;
+
+    /**
+     * Mask of the depth and of the generation, before shifting.
+     */
+    private static final int FIELD_MASK = 0xFFFF;
+
+    /**
+     * Mask of the move in a data word.
+     */
+    private static final long MOVE_MASK = 0xFFFFFFFFL;
+
+    /**
+     * Bonus that keeps entries of the current generation from being replaced
+     * before older ones.
+     */
+    private static final int CURRENT_BONUS = FIELD_MASK + 1;
+
+    /**
+     * The entries, WORDS longs each.
+     */
+    private final long[] myTable;
+
+    /**
+     * Mask of a bucket index.
+     */
+    private final int myMask;
+
+    /**
+     * The current generation.
+     */
+    private final AtomicInteger myAge;
+
+    /**
+     * Creates an empty table.
+     * 
+     * @param theEntries the least number of entries; rounded up to a power of
+     *            two. Each entry takes 24 bytes.
+     * @throws IllegalArgumentException if theEntries is less than two or more
+     *             than 2^26.
+     */
+    public TranspositionTable(final int theEntries) {
+        if (theEntries < BUCKET || theEntries > 1 << (Integer.SIZE - 1 - WORDS - 2)) {
+            throw new IllegalArgumentException("Unsupported table size: " + theEntries);
+        }
+        final int entries = Integer.highestOneBit(theEntries - 1) << 1;
+        myTable = new long[entries * WORDS];
+        myMask = entries / BUCKET - 1;
+        myAge = new AtomicInteger();
+    }
+
+    /**
+     * Returns the number of entries the table holds.
+     * 
+     * @return the capacity.
+     */
+    public int capacity() {
+        return myTable.length / WORDS;
+    }
+
+    /**
+     * Starts a new generation, so that entries stored before are replaced
+     * first.
+     */
+    public void newGeneration() {
+        myAge.incrementAndGet();
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(myTable, 0);
+    }
+
+    /**
+     * Looks up a position.
+     * 
+     * @param theKey the hash of the position.
+     * @param theHit receives the entry if it is found.
+     * @return True if the position was found.
+     */
+    public boolean probe(final long theKey, final Hit theHit) {
+        boolean result = false;
+        final int base = bucket(theKey);
+        for (int slot = base; !result && slot < base + BUCKET * WORDS; slot += WORDS) {
+            final long data = myTable[slot + 1];
+            final long score = myTable[slot + 2];
+            if ((myTable[slot] ^ data ^ score) == theKey && (data | score) != 0) {
+                theHit.myScore = Double.longBitsToDouble(score);
+                theHit.myDepth = (int) (data >>> DEPTH_SHIFT) & FIELD_MASK;
+                theHit.myMove = (int) data;
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     * 
+     * @param theKey the hash of the position.
+     * @param theScore the score.
+     * @param theDepth the depth searched, from 0 to 65535.
+     * @param theMove the best move as a packed piece state.
+     */
+    public void store(final long theKey, final double theScore, final int theDepth,
+                      final int theMove) {
+        final int age = myAge.get() & FIELD_MASK;
+        final int base = bucket(theKey);
+        int victim = base;
+        int lowest = Integer.MAX_VALUE;
+        for (int slot = base; slot < base + BUCKET * WORDS; slot += WORDS) {
+            final long data = myTable[slot + 1];
+            final long score = myTable[slot + 2];
+            int priority = -1;
+            if ((data | score) != 0) {
+                priority = (int) (data >>> DEPTH_SHIFT) & FIELD_MASK;
+                if (((int) (data >>> AGE_SHIFT) & FIELD_MASK) == age) {
+                    priority += CURRENT_BONUS;
+                }
+                if ((myTable[slot] ^ data ^ score) == theKey) {
+                    // the same position: keep a deeper result of this generation
+                    lowest = Integer.MIN_VALUE;
+                    victim = slot;
+                    if (priority > CURRENT_BONUS + theDepth) {
+                        victim = -1;
+                    }
+                }
+            }
+            if (priority < lowest) {
+                lowest = priority;
+                victim = slot;
+            }
+        }
+        if (victim >= 0) {
+            final long data = theMove & MOVE_MASK
+                              | (long) (theDepth & FIELD_MASK) << DEPTH_SHIFT
+                              | (long) age << AGE_SHIFT;
+            final long score = Double.doubleToRawLongBits(theScore);
+            myTable[victim + 1] = data;
+            myTable[victim + 2] = score;
+            myTable[victim] = theKey ^ data ^ score;
+        }
+    }
+
+    /**
+     * Returns the first slot of the bucket of a key.
+     * 
+     * @param theKey the key.
+     * @return the index of the first word of the bucket.
+     */
+    private int bucket(final long theKey) {
+        return ((int) (theKey ^ theKey >>> Integer.SIZE) & myMask) * BUCKET * WORDS;
+    }
+
+    /**
+     * An entry read from the table. A search keeps one per thread and reuses
+     * it for every probe.
+     */
+    public static final class Hit {
+
+        /**
+         * The score.
+         */
+        private double myScore;
+
+        /**
+         * The depth searched.
+         */
+        private int myDepth;
+
+        /**
+         * The best move as a packed piece state.
+         */
+        private int myMove;
+
+        /**
+         * Returns the score.
+         * 
+         * @return the score.
+         */
+        public double getScore() {
+            return myScore;
+        }
+
+        /**
+         * Returns the depth the position was searched to.
+         * 
+         * @return the depth.
+         */
+        public int getDepth() {
+            return myDepth;
+        }
+
+        /**
+         * Returns the best move.
+         * 
+         * @return the best move as a packed piece state.
+         */
+        public int getMove() {
+            return myMove;
+        }
+    }
+}
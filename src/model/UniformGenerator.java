@@ -0,0 +1,59 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * Chooses every piece independently, each type equally likely.
+ */
+public final class UniformGenerator implements PieceGenerator {
+
+    /**
+     * Every TetrisPiece type, indexed by ordinal.
+     */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /**
+     * The random stream.
+     */
+    private final SplitMix myRandom;
+
+    /**
+     * Creates a generator with a seed.
+     * 
+     * @param theSeed the seed.
+     */
+    public UniformGenerator(final long theSeed) {
+        myRandom = new SplitMix(theSeed);
+    }
+
+    /**
+     * Creates a generator at the same position as another.
+     * 
+     * @param theOther the generator to copy.
+     */
+    private UniformGenerator(final UniformGenerator theOther) {
+        myRandom = new SplitMix(theOther.myRandom);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TetrisPiece next() {
+        return PIECES[myRandom.nextInt(PIECES.length)];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        // nothing to forget
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PieceGenerator copy() {
+        return new UniformGenerator(this);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * TCSS 305
+ * 
+ * An implementation of the classic game "Tetris".
+ */
+
+package model;
+
+/**
+ * Zobrist keys for hashing board positions. Each filled cell and each packed
+ * piece state has a fixed random 64 bit key, and a position hashes to the XOR
+ * of the keys of its parts, so a change to a few cells changes the hash by the
+ * XOR of their keys.
+ * 
+ * The keys are computed from the cell or state by the SplitMix64 finalizer
+ * instead of read from a table, so they need no memory, work for any board
+ * size, and are the same on every board and in every run.
+ */
+final class Zobrist {
+
+    /**
+     * Spreads consecutive cell and state numbers apart before mixing.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Keeps piece keys apart from cell keys.
+     */
+    private static final long PIECE_SALT = 0x632be59bd9b4e019L;
+
+    /**
+     * First multiplier of the finalizer.
+     */
+    private static final long MIX_1 = 0xbf58476d1ce4e5b9L;
+
+    /**
+     * Second multiplier of the finalizer.
+     */
+    private static final long MIX_2 = 0x94d049bb133111ebL;
+
+    /**
+     * First shift of the finalizer.
+     */
+    private static final int SHIFT_1 = 30;
+
+    /**
+     * Second shift of the finalizer.
+     */
+    private static final int SHIFT_2 = 27;
+
+    /**
+     * Third shift of the finalizer.
+     */
+    private static final int SHIFT_3 = 31;
+
+    /**
+     * Bits of the column in a cell number.
+     */
+    private static final int COLUMN_BITS = 6;
+
+    /**
+     * Constructor.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a filled cell.
+     * 
+     * @param theColumn the column, below 64.
+     * @param theRow the row.
+     * @return the key.
+     */
+    static long cell(final int theColumn, final int theRow) {
+        return mix(((long) theRow << COLUMN_BITS | theColumn) + 1);
+    }
+
+    /**
+     * Returns the key of the filled cells of a row.
+     * 
+     * @param theWord the occupancy word of the row.
+     * @param theRow the row.
+     * @return the XOR of the keys of the filled cells.
+     */
+    static long row(final long theWord, final int theRow) {
+        long result = 0;
+        long bits = theWord;
+        while (bits != 0) {
+            result ^= cell(Long.numberOfTrailingZeros(bits), theRow);
+            bits &= bits - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key of the current piece in a packed state.
+     * 
+     * @param theState the packed state.
+     * @return the key.
+     */
+    static long piece(final int theState) {
+        return mix(theState ^ PIECE_SALT);
+    }
+
+    /**
+     * Mixes a number into a random looking 64 bit key.
+     * 
+     * @param theValue the number.
+     * @return the key.
+     */
+    private static long mix(final long theValue) {
+        long z = theValue * GOLDEN_GAMMA;
+        z = (z ^ (z >>> SHIFT_1)) * MIX_1;
+        z = (z ^ (z >>> SHIFT_2)) * MIX_2;
+        return z ^ (z >>> SHIFT_3);
+    }
+}
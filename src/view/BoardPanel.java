@@ -8,31 +8,57 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.util.List;
-import java.util.Observable;
-import java.util.Observer;
 
 import javax.swing.JPanel;
 
+import metrics.InputTrace;
+import metrics.Latency;
+import metrics.PaintEvent;
+import metrics.PaintTimer;
+
 import model.Board;
+import model.BoardData;
+import model.MovableTetrisPiece;
+import model.PieceMovedListener;
+import model.Rotation;
+import model.TetrisPiece;
 
 /**
  * A panel to displays the game board.
  * 
  */
 @SuppressWarnings("serial")
-public class BoardPanel extends JPanel implements Observer {
+public class BoardPanel extends JPanel implements PieceMovedListener {
 
     /** Size of the padding around the actual board display. */
     private static final int PANEL_PADDING = 10;
 
+    /** Height of a line of the latency overlay. */
+    private static final int OVERLAY_LINE = 14;
+
     /** Height of the board. */
     private final int myBoardHeight;
 
     /** Size of the tiles of the board. */
     private final int myTileSize;
 
-    /** 2D list of colors that represent the visual look of the board. */
-    private List<Color[]> myColorArray;
+    /**
+     * 2D array of colors that represent the visual look of the board, bottom
+     * row first. It is kept up to date by applying each board change to it.
+     */
+    private Color[][] myColorArray;
+
+    /** The board being displayed, asked for the ghost piece on each paint. */
+    private Board myBoard;
+
+    /** Version of the board shown by the grid. */
+    private int myVersion;
+
+    /** Trace told when a paint finishes, or null. */
+    private InputTrace myTrace;
+
+    /** Times the paints of the panel. */
+    private final PaintTimer myPaintTimer = new PaintTimer(Latency.BOARD_PAINT);
 
     /**
      * Constructor.
@@ -49,6 +75,7 @@ public class BoardPanel extends JPanel implements Observer {
     /** {@inheritDoc} */
     @Override
     public void paintComponent(final Graphics theGraphics) {
+        final PaintEvent event = myPaintTimer.start();
         super.paintComponent(theGraphics);
 
         final Graphics2D g2d = (Graphics2D) theGraphics;
@@ -59,7 +86,7 @@ public class BoardPanel extends JPanel implements Observer {
         // draw the board
         for (int i = myBoardHeight - 1; i >= 0; i--) {
 
-            final Color[] colorArr = myColorArray.get(i);
+            final Color[] colorArr = myColorArray[i];
 
             for (int j = 0; j < colorArr.length; j++) {
 
@@ -81,17 +108,81 @@ public class BoardPanel extends JPanel implements Observer {
 
             }
         }
+
+        if (myBoard != null && myColorArray != null) {
+            drawGhost(g2d, myBoard.getGhostState());
+        }
+        if (myTrace != null && myTrace.isOverlayShown()) {
+            g2d.setColor(Color.WHITE);
+            g2d.drawString(myTrace.overlayText(), 2, OVERLAY_LINE);
+        }
+        myPaintTimer.finish(event, this);
+        if (myTrace != null) {
+            myTrace.painted(myVersion);
+        }
     }
 
-    /** {@inheritDoc} */
+    /**
+     * Outlines where the current piece would land if dropped. Only empty
+     * tiles are outlined, so the ghost never hides the piece itself.
+     * 
+     * @param theGraphics the graphics to draw with
+     * @param theState packed state of the landing position
+     */
+    private void drawGhost(final Graphics2D theGraphics, final int theState) {
+        final TetrisPiece piece = MovableTetrisPiece.unpackPiece(theState);
+        final Rotation rotation = MovableTetrisPiece.unpackRotation(theState);
+        final int x = MovableTetrisPiece.unpackX(theState);
+        final int y = MovableTetrisPiece.unpackY(theState);
+        theGraphics.setColor(piece.color());
+        for (int block = 0; block < piece.blocks(); block++) {
+            final int col = x + piece.offsetX(rotation, block);
+            final int row = y + piece.offsetY(rotation, block);
+            if (row < myBoardHeight && myColorArray[row][col] == null) {
+                theGraphics.drawRect(myTileSize * col,
+                                     myTileSize * (myBoardHeight - 1 - row),
+                                     myTileSize - 1, myTileSize - 1);
+            }
+        }
+    }
+
+    /**
+     * Sets the board being displayed.
+     * 
+     * @param theBoard the board
+     */
+    public void setBoard(final Board theBoard) {
+        myBoard = theBoard;
+    }
+
+    /**
+     * Sets the trace to tell when a paint finishes, which also decides whether
+     * the latency overlay is drawn.
+     * 
+     * @param theTrace the trace, or null
+     */
+    public void setInputTrace(final InputTrace theTrace) {
+        myTrace = theTrace;
+    }
+
+    /**
+     * Brings the displayed board up to date and repaints it.
+     * 
+     * @param theData the change to the board
+     */
     @Override
-    public void update(final Observable theObj, final Object theArg) {
-        if (theObj instanceof Board && theArg instanceof Board.BoardData) {
-            // repaint the board
-            final List<Color[]> colorArr = ((Board.BoardData) theArg).getBoardData();
-            myColorArray = colorArr;
-            repaint();
+    public void pieceMoved(final BoardData theData) {
+        if (myColorArray == null || theData.isFullRefresh()) {
+            // rebuild the whole board
+            final List<Color[]> colorArr = theData.getBoardData();
+            myColorArray = colorArr.toArray(new Color[colorArr.size()][]);
+        }
+        else {
+            // apply only the cells that changed
+            theData.applyTo(myColorArray);
         }
+        myVersion = theData.getVersion();
+        repaint();
     }
 
 }
@@ -4,6 +4,12 @@
 
 package view;
 
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+
+import metrics.Metrics;
+
 /**
  * Main class.
  * 
@@ -17,11 +23,25 @@ public final class GameMain {
     }
 
     /**
-     * Main method.
+     * Main method. The game metrics are published through JMX, and written to
+     * the log every N seconds when the system property tetris.metrics.log is
+     * set to N.
      * 
      * @param theArgs the command line arguments
      */
     public static void main(final String[] theArgs) {
+        if (Metrics.ENABLED) {
+            try {
+                Metrics.register();
+            }
+            catch (final JMException e) {
+                e.printStackTrace();
+            }
+            final int period = Integer.getInteger("tetris.metrics.log", 0);
+            if (period > 0) {
+                Metrics.startReporter(period, TimeUnit.SECONDS);
+            }
+        }
         new TetrisGUI();
     }
 
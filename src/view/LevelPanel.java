@@ -12,19 +12,21 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.Rectangle2D;
-import java.util.Observable;
-import java.util.Observer;
 
 import javax.swing.JPanel;
 
-import model.Board;
+import metrics.Latency;
+import metrics.PaintEvent;
+import metrics.PaintTimer;
+
+import model.LinesClearedListener;
 
 /**
  * Level panel.
  * 
  */
 @SuppressWarnings("serial")
-public class LevelPanel extends JPanel implements Observer {
+public class LevelPanel extends JPanel implements LinesClearedListener {
 
     /** The value that decides the current level of the game. */
     private static final int LEVEL_CONST = 5;
@@ -62,9 +64,12 @@ public class LevelPanel extends JPanel implements Observer {
     /** tetris. */
     private final TetrisGUI myTetrisGUI;
 
+    /** Times the paints of the panel. */
+    private final PaintTimer myPaintTimer = new PaintTimer(Latency.LEVEL_PAINT);
+
     /**
      * Constructor.
-     *
+     * 
      * @param theTileSize the size of the tiles of the level panel
      * @param theTetrisGUI tetris gui
      */
@@ -90,6 +95,7 @@ public class LevelPanel extends JPanel implements Observer {
      */
     @Override
     public void paintComponent(final Graphics theGraphics) {
+        final PaintEvent event = myPaintTimer.start();
         super.paintComponent(theGraphics);
 
         final Graphics2D g2d = (Graphics2D) theGraphics;
@@ -128,18 +134,15 @@ public class LevelPanel extends JPanel implements Observer {
             myTetrisGUI.increaseLevel();
             // System.out.println("Increasing level");
         }
+        myPaintTimer.finish(event, this);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void update(final Observable theObj, final Object theArg) {
-        if (theObj instanceof Board && theArg instanceof Board.CompletedLines) {
-
-            final int lines = ((Board.CompletedLines) theArg).getCompletedLines();
-            myScore += lines;
-        }
+    public void linesCleared(final int theLines) {
+        myScore += theLines;
         repaint();
     }
 
@@ -8,12 +8,14 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
-import java.util.Observable;
-import java.util.Observer;
 
 import javax.swing.JPanel;
 
-import model.Board;
+import metrics.Latency;
+import metrics.PaintEvent;
+import metrics.PaintTimer;
+
+import model.NextPieceListener;
 import model.Point;
 import model.TetrisPiece;
 
@@ -22,7 +24,7 @@ import model.TetrisPiece;
  * 
  */
 @SuppressWarnings("serial")
-public class PreviewBoxPanel extends JPanel implements Observer {
+public class PreviewBoxPanel extends JPanel implements NextPieceListener {
 
     /** Size of the preview box. */
     private static final int PREVIEW_BOX_SIZE = 4;
@@ -39,6 +41,9 @@ public class PreviewBoxPanel extends JPanel implements Observer {
     /** Next tetris piece. */
     private TetrisPiece myNextPiece;
 
+    /** Times the paints of the panel. */
+    private final PaintTimer myPaintTimer = new PaintTimer(Latency.PREVIEW_PAINT);
+
     /**
      * Constructor.
      * 
@@ -54,6 +59,7 @@ public class PreviewBoxPanel extends JPanel implements Observer {
     /** {@inheritDoc} */
     @Override
     public void paintComponent(final Graphics theGraphics) {
+        final PaintEvent event = myPaintTimer.start();
         super.paintComponent(theGraphics);
 
         final Graphics2D g2d = (Graphics2D) theGraphics;
@@ -94,17 +100,15 @@ public class PreviewBoxPanel extends JPanel implements Observer {
                 g2d.fill3DRect(x, y, myTileSize, myTileSize, true);
             }
         }
+        myPaintTimer.finish(event, this);
 
     }
 
     /** {@inheritDoc} */
     @Override
-    public void update(final Observable theObj, final Object theArg) {
-        if (theObj instanceof Board && theArg instanceof TetrisPiece) {
-            // repaint the preview box
-            final TetrisPiece nextPiece = (TetrisPiece) theArg;
-            myNextPiece = nextPiece;
-            repaint();
-        }
+    public void nextPiece(final TetrisPiece thePiece) {
+        // repaint the preview box
+        myNextPiece = thePiece;
+        repaint();
     }
 }
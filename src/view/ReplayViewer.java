@@ -0,0 +1,250 @@
+/*
+ * Tuan Huynh TCSS 305A - Tetris
+ */
+
+package view;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+
+import engine.HeadlessGame;
+import engine.Replay;
+import engine.ReplayPlayer;
+
+/**
+ * A window that plays a replay on a BoardPanel, at 1x to 100x the speed it was
+ * played at.
+ * 
+ * A Swing Timer fires once per replay tick and moves the playback clock on by
+ * as many ticks as the speed, and a ReplayPlayer applies the commands up to
+ * it. Space pauses and resumes, up and down change the speed, left and right
+ * seek five seconds back or forward through the keyframes of the player, and
+ * home goes back to the start.
+ */
+@SuppressWarnings("serial")
+public class ReplayViewer extends JPanel {
+
+    /** Playback speeds, as multiples of the recorded speed. */
+    private static final int[] SPEEDS = {1, 2, 5, 10, 25, 50, 100};
+
+    /** Ticks skipped by a seek. */
+    private static final int SEEK_TICKS = 5000 / HeadlessGame.TICK_MILLIS;
+
+    /** Milliseconds in a second. */
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    /** Size of the tiles of the board. */
+    private static final int TILE_SIZE = 25;
+
+    /** Margin around the board, as BoardPanel draws it. */
+    private static final int PADDING = 10;
+
+    /** Plays the replay. */
+    private final ReplayPlayer myPlayer;
+
+    /** Fires once per replay tick. */
+    private final Timer myTimer;
+
+    /** Shows the position and speed. */
+    private final JLabel myStatus;
+
+    /** Tick of the playback clock. */
+    private long myTick;
+
+    /** Index of the speed in SPEEDS. */
+    private int mySpeed;
+
+    /**
+     * Creates a viewer at the start of a replay, paused.
+     * 
+     * @param theReplay the replay.
+     */
+    public ReplayViewer(final Replay theReplay) {
+        super(new BorderLayout());
+        myPlayer = new ReplayPlayer(theReplay);
+        myStatus = new JLabel();
+        myTimer = new Timer(HeadlessGame.TICK_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                moveTo(myTick + SPEEDS[mySpeed]);
+            }
+        });
+        setupBoard(theReplay);
+        add(myStatus, BorderLayout.SOUTH);
+        setFocusable(true);
+        addKeyListener(new Keys());
+        showStatus();
+    }
+
+    /**
+     * Opens a replay file in a window and starts playing it.
+     * 
+     * @param theArgs the replay file.
+     */
+    public static void main(final String... theArgs) {
+        if (theArgs.length != 1) {
+            System.err.println("Usage: ReplayViewer FILE");
+            System.exit(1);
+        }
+        final Replay replay;
+        try {
+            replay = Replay.read(Paths.get(theArgs[0]));
+        }
+        catch (final IOException e) {
+            System.err.println(theArgs[0] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        EventQueue.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                final JFrame frame = new JFrame("Replay " + theArgs[0]);
+                final ReplayViewer viewer = new ReplayViewer(replay);
+                frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                frame.add(viewer);
+                frame.pack();
+                frame.setResizable(false);
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+                viewer.requestFocusInWindow();
+                viewer.play();
+            }
+        });
+    }
+
+    /**
+     * Starts or resumes playback.
+     */
+    public void play() {
+        if (!myPlayer.isAtEnd()) {
+            myTimer.start();
+        }
+        showStatus();
+    }
+
+    /**
+     * Pauses playback.
+     */
+    public void pause() {
+        myTimer.stop();
+        showStatus();
+    }
+
+    /**
+     * Sets the playback speed.
+     * 
+     * @param theSpeed an index into the speeds, clamped to the range.
+     */
+    public void setSpeed(final int theSpeed) {
+        mySpeed = Math.max(0, Math.min(SPEEDS.length - 1, theSpeed));
+        showStatus();
+    }
+
+    /**
+     * Moves the playback clock to a tick, seeking back if it is behind.
+     * Playback stops at the end of the replay, and the clock at its last
+     * command.
+     * 
+     * @param theTick the tick, clamped at zero.
+     */
+    public void moveTo(final long theTick) {
+        final long tick = Math.max(0, theTick);
+        if (tick < myTick) {
+            myPlayer.seek(tick);
+        }
+        else {
+            myPlayer.advanceTo(tick);
+        }
+        myTick = tick;
+        if (myPlayer.isAtEnd()) {
+            myTick = Math.min(tick, myPlayer.getTick());
+            myTimer.stop();
+        }
+        showStatus();
+    }
+
+    /**
+     * Adds a board panel that shows the board of the player.
+     * 
+     * @param theReplay the replay, for the board size.
+     */
+    private void setupBoard(final Replay theReplay) {
+        final BoardPanel panel = new BoardPanel(theReplay.getHeight(), TILE_SIZE);
+        panel.setBoard(myPlayer.getBoard());
+        panel.setBackground(Color.WHITE);
+        panel.setPreferredSize(new Dimension(theReplay.getWidth() * TILE_SIZE + 2 * PADDING,
+                                             theReplay.getHeight() * TILE_SIZE + 2 * PADDING));
+        myPlayer.getBoard().getEvents().addPieceMovedListener(panel);
+        // the full refresh of the rewind gives the panel its grid
+        myPlayer.rewind();
+        add(panel, BorderLayout.CENTER);
+    }
+
+    /**
+     * Shows the position, the results so far and the speed.
+     */
+    private void showStatus() {
+        String state = "";
+        if (myPlayer.isAtEnd()) {
+            state = "  end";
+        }
+        else if (!myTimer.isRunning()) {
+            state = "  paused";
+        }
+        myStatus.setText(String.format(" %.1f s  lines %d  level %d  %dx%s",
+                                       myTick * HeadlessGame.TICK_MILLIS / MILLIS_PER_SECOND,
+                                       myPlayer.getLines(), myPlayer.getLevel(),
+                                       SPEEDS[mySpeed], state));
+    }
+
+    /**
+     * Controls playback from the keyboard.
+     */
+    private final class Keys extends KeyAdapter {
+
+        /** {@inheritDoc} */
+        @Override
+        public void keyPressed(final KeyEvent theEvent) {
+            switch (theEvent.getKeyCode()) {
+                case KeyEvent.VK_SPACE:
+                    if (myTimer.isRunning()) {
+                        pause();
+                    }
+                    else {
+                        play();
+                    }
+                    break;
+                case KeyEvent.VK_UP:
+                    setSpeed(mySpeed + 1);
+                    break;
+                case KeyEvent.VK_DOWN:
+                    setSpeed(mySpeed - 1);
+                    break;
+                case KeyEvent.VK_LEFT:
+                    moveTo(myTick - SEEK_TICKS);
+                    break;
+                case KeyEvent.VK_RIGHT:
+                    moveTo(myTick + SEEK_TICKS);
+                    break;
+                case KeyEvent.VK_HOME:
+                    moveTo(0);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
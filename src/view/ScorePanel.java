@@ -13,8 +13,9 @@ import java.awt.RenderingHints;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.io.IOException;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
@@ -23,14 +24,18 @@ import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import javax.swing.JPanel;
 
-import model.Board;
+import metrics.Latency;
+import metrics.PaintEvent;
+import metrics.PaintTimer;
+
+import model.LinesClearedListener;
 
 /**
  * Score panel.
  * 
  */
 @SuppressWarnings("serial")
-public class ScorePanel extends JPanel implements Observer {
+public class ScorePanel extends JPanel implements LinesClearedListener {
 
     /** Font size for score. */
     private static final int FONT_SIZE = 40;
@@ -64,15 +69,29 @@ public class ScorePanel extends JPanel implements Observer {
     /** Audio clip to be played when a line is completed. */
     private Clip myClip;
 
+    /** Thread that plays the clip. */
+    private final ExecutorService myAudio;
+
+    /** Times the paints of the panel. */
+    private final PaintTimer myPaintTimer = new PaintTimer(Latency.SCORE_PAINT);
+
     /**
      * Constructor.
-     *
+     * 
      * @param theTileSize the size of the tiles of the preview box
      */
     public ScorePanel(final int theTileSize) {
         super();
         myBoxWidth = theTileSize * PREVIEW_BOX_SIZE;
         myBoxHeight = theTileSize * PREVIEW_BOX_SIZE;
+        myAudio = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable theTask) {
+                final Thread thread = new Thread(theTask, "score-audio");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
         setUpAudio();
     }
 
@@ -99,6 +118,10 @@ public class ScorePanel extends JPanel implements Observer {
                         | UnsupportedAudioFileException e) {
             e.printStackTrace();
         }
+        catch (final IllegalArgumentException e) {
+            // no audio device can play the clip, as on a headless machine
+            myClip = null;
+        }
 
     }
 
@@ -107,6 +130,7 @@ public class ScorePanel extends JPanel implements Observer {
      */
     @Override
     public void paintComponent(final Graphics theGraphics) {
+        final PaintEvent event = myPaintTimer.start();
         super.paintComponent(theGraphics);
 
         final Graphics2D g2d = (Graphics2D) theGraphics;
@@ -137,6 +161,7 @@ public class ScorePanel extends JPanel implements Observer {
             g2d.drawString(EMPTY_S + myScore, myBoxWidth / 2 - WIDTH_GAP,
                            myBoxHeight / 2 + HEIGHT_GAP);
         }
+        myPaintTimer.finish(event, this);
 
     }
 
@@ -144,14 +169,18 @@ public class ScorePanel extends JPanel implements Observer {
      * {@inheritDoc}
      */
     @Override
-    public void update(final Observable theObj, final Object theArg) {
-        if (theObj instanceof Board && theArg instanceof Board.CompletedLines) {
-
-            final int lines = ((Board.CompletedLines) theArg).getCompletedLines();
-            myScore += lines;
-            myClip.loop(1);
-            repaint();
+    public void linesCleared(final int theLines) {
+        myScore += theLines;
+        if (myClip != null) {
+            // play the clip off the event thread so that gravity is not held up
+            myAudio.execute(new Runnable() {
+                @Override
+                public void run() {
+                    myClip.loop(1);
+                }
+            });
         }
+        repaint();
     }
 
     /**
@@ -7,17 +7,22 @@ package view;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
-import java.util.Observable;
-import java.util.Observer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
@@ -36,13 +41,23 @@ import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 import javax.swing.Timer;
 
+import engine.Command;
+import engine.GameTally;
+import engine.HeadlessGame;
+import engine.Randomizer;
+import engine.ReplayWriter;
+
+import metrics.InputTrace;
+import metrics.Latency;
+
 import model.Board;
+import model.GameStatusListener;
 
 /**
  * Tetris's GUI.
  */
 @SuppressWarnings("serial")
-public class TetrisGUI extends JPanel implements Observer {
+public class TetrisGUI extends JPanel implements GameStatusListener {
 
     /** Default time delay. */
     private static final int TIME_DELAY = 1000;
@@ -83,6 +98,16 @@ public class TetrisGUI extends JPanel implements Observer {
     /** Font size for the "NEXT" label. */
     private static final int NEXT_FONT_SIZE = 25;
 
+    /** File the input latency is saved to from the Debug menu. */
+    private static final String LATENCY_FILE = "input-latency.txt";
+
+    /** Directory every game is recorded in, or null to record nothing. */
+    private static final String REPLAY_DIRECTORY = System.getProperty("tetris.replay.dir");
+
+    /** Length of a replay tick in nanoseconds. */
+    private static final long TICK_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(HeadlessGame.TICK_MILLIS);
+
     /** Parent window of the main panel. */
     private final JFrame myGameWindow;
 
@@ -119,6 +144,25 @@ public class TetrisGUI extends JPanel implements Observer {
     /** Menu bar. */
     private final JMenuBar myMainMenuBar;
 
+    /**
+     * Delivers board events at the end of the current Swing event, so that a
+     * key press or timer tick returns quickly and its moves reach the panels
+     * combined.
+     */
+    private final Executor myEventExecutor;
+
+    /** Traces the latency from key presses to the paint that shows them. */
+    private final InputTrace myTrace;
+
+    /** Records the current game, or null. */
+    private ReplayWriter myRecorder;
+
+    /** Time the current game started, from System.nanoTime. */
+    private long myGameStart;
+
+    /** Keeps the score of the current game, for its replay. */
+    private GameTally myTally;
+
     /** Constructor. */
     public TetrisGUI() {
         super();
@@ -128,11 +172,22 @@ public class TetrisGUI extends JPanel implements Observer {
         myTimer = new Timer(myDelayTime, new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent theActionEvent) {
-                myBoard.step();
+                final long start = Latency.TIMER_TICK.start();
+                play(Command.STEP);
+                Latency.TIMER_TICK.stop(start);
             }
         });
 
         myMainMenuBar = new JMenuBar();
+        myTrace = new InputTrace();
+        myTrace.setOverlayShown(Boolean.getBoolean("tetris.latency.overlay"));
+        dumpLatencyOnExit(System.getProperty("tetris.latency.dump"));
+        myEventExecutor = new Executor() {
+            @Override
+            public void execute(final Runnable theTask) {
+                EventQueue.invokeLater(theTask);
+            }
+        };
         // setup the window and its components
         setup();
 
@@ -158,28 +213,30 @@ public class TetrisGUI extends JPanel implements Observer {
         this.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(final KeyEvent theKeyEvent) {
+                final long stamp = myTrace.stamp(theKeyEvent.getWhen());
+                final int before = myBoard.getVersion();
 
                 if (theKeyEvent.getKeyCode() == KeyEvent.VK_LEFT && !isPaused()) {
-                    myBoard.left();
+                    play(Command.LEFT);
                     setSoundEffect();
                 }
                 else if (theKeyEvent.getKeyCode() == KeyEvent.VK_RIGHT && !isPaused()) {
-                    myBoard.right();
+                    play(Command.RIGHT);
                     setSoundEffect();
                 }
                 else if (theKeyEvent.getKeyCode() == KeyEvent.VK_DOWN && !isPaused()) {
-                    myBoard.down();
+                    play(Command.DOWN);
                     setSoundEffect();
                 }
                 else if (theKeyEvent.getKeyCode() == KeyEvent.VK_SPACE && !isPaused()) {
-                    myBoard.drop();
+                    play(Command.DROP);
                 }
                 else if (theKeyEvent.getKeyCode() == KeyEvent.VK_SHIFT && !isPaused()) {
-                    myBoard.rotateCW();
+                    play(Command.ROTATE_CW);
                     setSoundEffect();
                 }
                 else if (theKeyEvent.getKeyCode() == KeyEvent.VK_UP && !isPaused()) {
-                    myBoard.rotateCCW();
+                    play(Command.ROTATE_CCW);
                     setSoundEffect();
                 }
                 else if (theKeyEvent.getKeyCode() == KeyEvent.VK_P) {
@@ -188,6 +245,7 @@ public class TetrisGUI extends JPanel implements Observer {
                 else if (theKeyEvent.getKeyCode() == KeyEvent.VK_R) {
                     resume();
                 }
+                myTrace.submitted(stamp, before, myBoard.getVersion());
 
             }
         });
@@ -206,6 +264,8 @@ public class TetrisGUI extends JPanel implements Observer {
 
         addMenuBar2();
 
+        addDebugMenu();
+
     }
 
     /**
@@ -226,7 +286,7 @@ public class TetrisGUI extends JPanel implements Observer {
     }
 
     /**
-     *
+     * 
      */
     private void setGUI() {
         // set attributes of the gameWindow
@@ -235,6 +295,12 @@ public class TetrisGUI extends JPanel implements Observer {
         myGameWindow.setResizable(false);
         myGameWindow.setLocationRelativeTo(null);
         myGameWindow.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        myGameWindow.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(final WindowEvent theEvent) {
+                stopRecording();
+            }
+        });
     }
 
     /**
@@ -351,6 +417,75 @@ public class TetrisGUI extends JPanel implements Observer {
         myGameWindow.setJMenuBar(myMainMenuBar);
     }
 
+    /**
+     * Adds the Debug menu: the input latency overlay and saving the input
+     * latency to a file.
+     */
+    private void addDebugMenu() {
+        final JMenu debug = new JMenu("Debug");
+        debug.setMnemonic(KeyEvent.VK_D);
+        final JCheckBoxMenuItem overlay = new JCheckBoxMenuItem("Latency Overlay");
+        overlay.setMnemonic(KeyEvent.VK_L);
+        overlay.setSelected(myTrace.isOverlayShown());
+        overlay.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                myTrace.setOverlayShown(overlay.isSelected());
+                myBoardPanel.repaint();
+            }
+        });
+        debug.add(overlay);
+
+        final JMenuItem save = new JMenuItem(new AbstractAction() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                saveLatency();
+            }
+        });
+        save.setText("Save Input Latency");
+        save.setMnemonic(KeyEvent.VK_S);
+        debug.add(save);
+
+        myMainMenuBar.add(debug);
+    }
+
+    /**
+     * Saves the input latency to a file in the working directory and tells
+     * the player where it went.
+     */
+    private void saveLatency() {
+        final Path file = Paths.get(LATENCY_FILE).toAbsolutePath();
+        try {
+            InputTrace.dump(file);
+            JOptionPane.showMessageDialog(myGameWindow, "Input latency saved to " + file);
+        }
+        catch (final IOException e) {
+            JOptionPane.showMessageDialog(myGameWindow, e.getMessage(), "Save failed",
+                                          JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Saves the input latency to a file when the program exits.
+     * 
+     * @param theFile the file name, or null to save nothing.
+     */
+    private static void dumpLatencyOnExit(final String theFile) {
+        if (theFile != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        InputTrace.dump(Paths.get(theFile));
+                    }
+                    catch (final IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }, "latency-dump"));
+        }
+    }
+
     /**
      * Sets up the inner panels.
      */
@@ -358,6 +493,7 @@ public class TetrisGUI extends JPanel implements Observer {
 
         // instantiate inner panels
         myBoardPanel = new BoardPanel(BOARD_HEIGHT, TILE_SIZE);
+        myBoardPanel.setInputTrace(myTrace);
         myPreviewPanel = new PreviewBoxPanel(TILE_SIZE);
         myScorePanel = new ScorePanel(TILE_SIZE);
         myLevelPanel = new LevelPanel(TILE_SIZE, this);
@@ -451,12 +587,19 @@ public class TetrisGUI extends JPanel implements Observer {
     private void newGame() {
         // create a new board
         // myDelayTime = TIME_DELAY;
+        stopRecording();
         myBoard = new Board(BOARD_WIDTH, BOARD_HEIGHT);
-        myBoard.addObserver(myBoardPanel);
-        myBoard.addObserver(myPreviewPanel);
-        myBoard.addObserver(myScorePanel);
-        myBoard.addObserver(myLevelPanel);
-        myBoard.addObserver(this);
+        startRecording(new SplittableRandom().nextLong());
+        myTrace.clear();
+        myBoard.getEvents().setExecutor(myEventExecutor);
+        myBoard.getEvents().addPieceMovedListener(myBoardPanel);
+        myBoard.getEvents().addNextPieceListener(myPreviewPanel);
+        myBoard.getEvents().addLinesClearedListener(myScorePanel);
+        myBoard.getEvents().addLinesClearedListener(myLevelPanel);
+        myBoard.getEvents().addGameStatusListener(this);
+        myTally = new GameTally();
+        myTally.listenTo(myBoard.getEvents());
+        myBoardPanel.setBoard(myBoard);
         myBoard.clear();
         if (myClip.isRunning()) {
             myClip.close();
@@ -467,6 +610,74 @@ public class TetrisGUI extends JPanel implements Observer {
         myLevelPanel.repaint();
     }
 
+    /**
+     * Applies a board command to the current game and records it.
+     * 
+     * @param theCommand the command.
+     */
+    private void play(final Command theCommand) {
+        theCommand.applyTo(myBoard);
+        if (myRecorder != null) {
+            try {
+                myRecorder.record(gameTick(), theCommand);
+            }
+            catch (final IOException e) {
+                e.printStackTrace();
+                myRecorder = null;
+            }
+        }
+    }
+
+    /**
+     * Gives the new board a seeded piece generator, so that the game can be
+     * played again, and starts recording it if a replay directory is set. The
+     * board must not be cleared yet.
+     * 
+     * @param theSeed the seed of the piece generator.
+     */
+    private void startRecording(final long theSeed) {
+        myBoard.setPieceGenerator(Randomizer.UNIFORM.create(theSeed));
+        myGameStart = System.nanoTime();
+        if (REPLAY_DIRECTORY != null) {
+            final Path file = Paths.get(REPLAY_DIRECTORY,
+                                        "tetris-" + System.currentTimeMillis() + ".replay");
+            try {
+                myRecorder = ReplayWriter.open(file, BOARD_WIDTH, BOARD_HEIGHT,
+                                               Randomizer.UNIFORM, theSeed);
+            }
+            catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Finishes the replay of the current game, if it is recorded, claiming the
+     * lines, score and level kept by the tally of the game.
+     */
+    private void stopRecording() {
+        if (myRecorder != null) {
+            try {
+                myRecorder.finish(gameTick(), myTally.getLines(), myTally.getScore(),
+                                  myTally.getLevel(), myBoard);
+            }
+            catch (final IOException e) {
+                e.printStackTrace();
+            }
+            myRecorder = null;
+        }
+    }
+
+    /**
+     * Returns the replay tick of the current game: the time since it started,
+     * in ticks of HeadlessGame.TICK_MILLIS.
+     * 
+     * @return the tick.
+     */
+    private long gameTick() {
+        return (System.nanoTime() - myGameStart) / TICK_NANOS;
+    }
+
     /**
      * Pauses the game.
      */
@@ -495,42 +706,54 @@ public class TetrisGUI extends JPanel implements Observer {
      * {@inheritDoc}
      */
     @Override
-    public void update(final Observable theObj, final Object theArg) {
-        if (theObj instanceof Board && theArg instanceof Board.GameStatus) {
-            // ask to play again if game is over.
-            final boolean gameOver = ((Board.GameStatus) theArg).isGameOver();
-            if (gameOver) {
-                pause();
-                if (myClip.isRunning()) {
-                    myClip.close();
+    public void gameStatusChanged(final boolean theGameOver) {
+        // ask to play again if game is over.
+        if (theGameOver) {
+            pause();
+            if (myClip.isRunning()) {
+                myClip.close();
+            }
+            // the lines of the lock that ended the game are delivered after
+            // this event, so the game ends once they have been
+            EventQueue.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    endGame();
                 }
-                final int type = JOptionPane.YES_NO_OPTION;
-
-                myAnswer = JOptionPane.showConfirmDialog(this,
-                                                         "You're bad!\nWould you "
-                                                               + "like to play again?",
-                                                         GAME_OVER, type);
+            });
+        }
+    }
 
-                // create a new game if player chooses yes.
-                if (myAnswer == JOptionPane.YES_OPTION) {
-                    resume();
-                    newGame();
-                    myScorePanel.setScore(0);
-                    myLevelPanel.setLevel(0);
-                    myScorePanel.repaint();
-                    myLevelPanel.repaint();
-                }
-                else {
-                    myGameWindow.dispatchEvent(new WindowEvent(myGameWindow,
-                                                               WindowEvent.WINDOW_CLOSING));
-                }
-            }
+    /**
+     * Finishes the replay of a game that is over and asks to play again.
+     */
+    private void endGame() {
+        stopRecording();
+        final int type = JOptionPane.YES_NO_OPTION;
+
+        myAnswer = JOptionPane.showConfirmDialog(this,
+                                                 "You're bad!\nWould you "
+                                                       + "like to play again?",
+                                                 GAME_OVER, type);
+
+        // create a new game if player chooses yes.
+        if (myAnswer == JOptionPane.YES_OPTION) {
+            resume();
+            newGame();
+            myScorePanel.setScore(0);
+            myLevelPanel.setLevel(0);
+            myScorePanel.repaint();
+            myLevelPanel.repaint();
+        }
+        else {
+            myGameWindow.dispatchEvent(new WindowEvent(myGameWindow,
+                                                       WindowEvent.WINDOW_CLOSING));
         }
     }
 
     /**
      * Checks if game is paused.
-     *
+     * 
      * @return true, if game is paused
      */
     public boolean isPaused() {
@@ -539,7 +762,7 @@ public class TetrisGUI extends JPanel implements Observer {
 
     /**
      * Sets the if the game is paused.
-     *
+     * 
      * @param thePaused if the game is paused
      */
     public void setPaused(final boolean thePaused) {
@@ -558,5 +781,4 @@ public class TetrisGUI extends JPanel implements Observer {
         // System.out.print(myDelayTime);
 
     }
-
 }